@@ -0,0 +1,59 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.compact.CompactAST;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a stylesheet with Pipeline.parseString against loading its AST from the binary form
+ * of a CompactAST, as the ParseCache does, and against reading only the CompactAST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AstLoadBenchmark {
+
+    @Param({"level3.icss", "synthetic-1mb"})
+    public String input;
+
+    private String text;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = BenchmarkInputs.load(input);
+        var bytes = new ByteArrayOutputStream();
+        CompactAST.of(BenchmarkInputs.parse(text)).writeTo(new DataOutputStream(bytes));
+        binary = bytes.toByteArray();
+        System.out.printf("%nBinary AST of %s: %d bytes for %d characters%n", input, binary.length, text.length());
+    }
+
+    @Benchmark
+    public AST parseString() {
+        var pipeline = new Pipeline();
+        pipeline.parseString(text);
+        return pipeline.getAST();
+    }
+
+    @Benchmark
+    public AST loadBinary() {
+        var pipeline = new Pipeline();
+        pipeline.loadAST(CompactAST.readFrom(ByteBuffer.wrap(binary)).toAST());
+        return pipeline.getAST();
+    }
+
+    @Benchmark
+    public CompactAST readCompact() {
+        return CompactAST.readFrom(ByteBuffer.wrap(binary));
+    }
+}
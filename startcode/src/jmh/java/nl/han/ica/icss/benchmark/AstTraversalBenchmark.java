@@ -0,0 +1,71 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares walking the AST through the lists of getChildren with the indexed getChildCount/getChild,
+ * and measures the passes that use the indexed walk. Compare gc.alloc.rate.norm between the two walks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AstTraversalBenchmark {
+
+    @Param({"level3.icss", "synthetic-1mb"})
+    public String input;
+
+    private AST ast;
+    private AST copy;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        var text = BenchmarkInputs.load(input);
+        ast = BenchmarkInputs.parse(text);
+        copy = BenchmarkInputs.parse(text);
+    }
+
+    @Benchmark
+    public int walkGetChildren() {
+        return countWithLists(ast.root);
+    }
+
+    @Benchmark
+    public int walkGetChild() {
+        return countIndexed(ast.root);
+    }
+
+    @Benchmark
+    public int collectErrors() {
+        return ast.getErrors().size();
+    }
+
+    @Benchmark
+    public boolean equalsTree() {
+        return ast.equals(copy);
+    }
+
+    private static int countWithLists(ASTNode node) {
+        var count = 1;
+        for (var child : node.getChildren()) {
+            count += countWithLists(child);
+        }
+        return count;
+    }
+
+    private static int countIndexed(ASTNode node) {
+        var count = 1;
+        var children = node.getChildCount();
+        for (int i = 0; i < children; i++) {
+            count += countIndexed(node.getChild(i));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Inputs shared by the benchmarks: the bundled level files and synthetic stylesheets.
+ */
+final class BenchmarkInputs {
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+    private static final long SYNTHETIC_SEED = 2020;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Loads a benchmark input by name, either a resource like "level3.icss"
+     * or a synthetic stylesheet of a given size like "synthetic-4mb".
+     * @param name the input name
+     * @return the ICSS source
+     * @throws IOException when the resource cannot be read
+     */
+    static String load(String name) throws IOException {
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            var megabytes = Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length(), name.length() - 2));
+            return synthetic(megabytes * 1024 * 1024);
+        }
+        try (InputStream inputStream = BenchmarkInputs.class.getClassLoader().getResourceAsStream(name)) {
+            if (inputStream == null) throw new IOException("Unknown benchmark input " + name);
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A reproducible stylesheet of the given size, made by the CorpusGenerator.
+     */
+    private static String synthetic(int size) {
+        return new CorpusGenerator(SYNTHETIC_SEED).targetSize(size).generate();
+    }
+
+    /**
+     * Parses without going through the Pipeline, so no stage other than lexing and parsing is measured.
+     */
+    static AST parse(String input) {
+        var parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(input))));
+        var listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parser.stylesheet());
+        return listener.getAST();
+    }
+}
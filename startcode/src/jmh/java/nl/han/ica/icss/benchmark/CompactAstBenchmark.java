@@ -0,0 +1,109 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.compact.CompactAST;
+import nl.han.ica.icss.compact.CompactChecker;
+import nl.han.ica.icss.compact.CompactEvaluator;
+import nl.han.ica.icss.compact.CompactGenerator;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.DirectParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the ASTNode classes with the CompactAST: the cost of building each, and of a compile from text to CSS on each.
+ * The heap retained per declaration by each representation is printed at the end of every trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactAstBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+        int declarations;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+            var compact = CompactAST.of(new DirectParser(text).parse());
+            for (int node = 0; node < compact.getNodeCount(); node++) {
+                if (compact.getKind(node) == CompactAST.DECLARATION) declarations++;
+            }
+        }
+
+        /**
+         * Prints the heap retained per declaration by each representation of the input,
+         * measured from the used heap after a GC.
+         */
+        @TearDown(Level.Trial)
+        public void printFootprint() {
+            var ast = retained(() -> new DirectParser(text).parse());
+            var compact = retained(() -> buildCompact(text));
+            System.out.printf("%nRetained bytes per declaration of %s: AST %d, CompactAST %d%n",
+                    input, ast / declarations, compact / declarations);
+        }
+
+        private static long retained(Supplier<Object> representation) {
+            var before = usedHeapAfterGc();
+            var kept = representation.get();
+            var after = usedHeapAfterGc();
+            Reference.reachabilityFence(kept);
+            return after - before;
+        }
+
+        private static long usedHeapAfterGc() {
+            var memory = ManagementFactory.getMemoryMXBean();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    @Benchmark
+    public AST buildAst(Input input) {
+        return new DirectParser(input.text).parse();
+    }
+
+    @Benchmark
+    public CompactAST buildCompact(Input input) {
+        return buildCompact(input.text);
+    }
+
+    @Benchmark
+    public String compileAst(Input input) {
+        var ast = new DirectParser(input.text).parse();
+        new Checker().check(ast);
+        new Evaluator().apply(ast);
+        return new Generator().generate(ast);
+    }
+
+    @Benchmark
+    public String compileCompact(Input input) {
+        var compact = buildCompact(input.text);
+        var errors = new CompactChecker().check(compact);
+        if (!errors.isEmpty()) throw new IllegalStateException(errors.get(0));
+        return new CompactGenerator().generate(new CompactEvaluator().apply(compact));
+    }
+
+    /**
+     * Uses the same parser as the AST benchmarks, the ASTNode objects are garbage once the CompactAST is built.
+     */
+    private static CompactAST buildCompact(String text) {
+        return CompactAST.of(new DirectParser(text).parse());
+    }
+}
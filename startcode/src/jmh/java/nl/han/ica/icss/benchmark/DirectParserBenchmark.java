@@ -0,0 +1,66 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.parser.ASTBuilder;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.DirectParser;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares text to AST with the ANTLR lexer, parser and ASTListener against ANTLR with an ASTBuilder
+ * and no parse tree, and against the hand-written DirectParser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectParserBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"level3.icss", "synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+        }
+    }
+
+    @Benchmark
+    public AST antlr(Input input) {
+        var parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(input.text))));
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        var listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parser.stylesheet());
+        return listener.getAST();
+    }
+
+    @Benchmark
+    public AST antlrWithoutParseTree(Input input) {
+        var parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(input.text))));
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setBuildParseTree(false);
+        var builder = new ASTBuilder();
+        parser.addParseListener(builder);
+        parser.stylesheet();
+        return builder.getAST();
+    }
+
+    @Benchmark
+    public AST direct(Input input) {
+        return new DirectParser(input.text).parse();
+    }
+}
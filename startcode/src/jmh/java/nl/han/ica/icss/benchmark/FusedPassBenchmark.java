@@ -0,0 +1,62 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.transforms.CheckingEvaluator;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Checker followed by the Evaluator with the single walk of the CheckingEvaluator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedPassBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"level3.icss", "synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+        }
+    }
+
+    /**
+     * Both passes transform the AST in place, so they need a fresh AST for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class FreshAST {
+        AST ast;
+
+        @Setup(Level.Invocation)
+        public void setUp(Input input) {
+            ast = BenchmarkInputs.parse(input.text);
+        }
+    }
+
+    @Benchmark
+    public AST sequential(FreshAST fresh) {
+        new Checker().check(fresh.ast);
+        if (fresh.ast.getErrors().isEmpty()) {
+            new Evaluator().apply(fresh.ast);
+        }
+        return fresh.ast;
+    }
+
+    @Benchmark
+    public AST fused(FreshAST fresh) {
+        new CheckingEvaluator().apply(fresh.ast);
+        return fresh.ast;
+    }
+}
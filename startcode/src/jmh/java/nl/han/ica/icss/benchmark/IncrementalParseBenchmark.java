@@ -0,0 +1,51 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.parser.IncrementalParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a one character edit in the middle of a large stylesheet, parsed incrementally, with a full parse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalParseBenchmark {
+
+    @State(Scope.Thread)
+    public static class Editor {
+        @Param({"synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+        IncrementalParser parser;
+        int digit;
+        boolean toggle;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+            parser = new IncrementalParser();
+            parser.parse(text);
+            //The last digit of a pixel value halfway the stylesheet
+            digit = text.indexOf("px;", text.length() / 2) - 1;
+        }
+    }
+
+    @Benchmark
+    public AST editIncremental(Editor editor) {
+        editor.toggle = !editor.toggle;
+        editor.parser.edit(editor.digit, 1, editor.toggle ? "1" : "2");
+        return editor.parser.getAST();
+    }
+
+    @Benchmark
+    public AST parseFull(Editor editor) {
+        return BenchmarkInputs.parse(editor.text);
+    }
+}
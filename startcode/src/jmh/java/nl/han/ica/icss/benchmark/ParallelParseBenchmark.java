@@ -0,0 +1,53 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.parser.ParallelParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a large stylesheet in one piece with parsing it in chunks on all cores.
+ * Sequential uses the same parser with a single thread, so it splits in as few chunks as the input allows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelParseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public AST sequential(Input input) {
+        return new ParallelParser(Runnable::run, 1).parse(input.text);
+    }
+
+    @Benchmark
+    public AST parallel(Input input) {
+        return new ParallelParser(input.executor, input.threads).parse(input.text);
+    }
+}
@@ -0,0 +1,95 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every stage of the pipeline in isolation, each stage gets the output of the previous stage as prepared input.
+ * Run with the GC profiler (see BenchmarkRunner) to get the allocation rate per stage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineStageBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"level0.icss", "level1.icss", "level2.icss", "level3.icss", "synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+        List<? extends Token> tokens;
+        AST parsed;
+        AST transformed;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+            tokens = new ICSSLexer(CharStreams.fromString(text)).getAllTokens();
+            parsed = BenchmarkInputs.parse(text);
+            new Checker().check(parsed);
+            transformed = BenchmarkInputs.parse(text);
+            new Evaluator().apply(transformed);
+        }
+    }
+
+    /**
+     * The Evaluator transforms the AST in place, so it needs a fresh AST for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class FreshAST {
+        AST ast;
+
+        @Setup(Level.Invocation)
+        public void setUp(Input input) {
+            ast = BenchmarkInputs.parse(input.text);
+        }
+    }
+
+    @Benchmark
+    public List<? extends Token> lex(Input input) {
+        return new ICSSLexer(CharStreams.fromString(input.text)).getAllTokens();
+    }
+
+    @Benchmark
+    public AST parse(Input input) {
+        var parser = new ICSSParser(new CommonTokenStream(new ListTokenSource(input.tokens)));
+        var listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parser.stylesheet());
+        return listener.getAST();
+    }
+
+    @Benchmark
+    public AST check(Input input) {
+        new Checker().check(input.parsed);
+        return input.parsed;
+    }
+
+    @Benchmark
+    public AST evaluate(FreshAST fresh) {
+        new Evaluator().apply(fresh.ast);
+        return fresh.ast;
+    }
+
+    @Benchmark
+    public String generate(Input input) {
+        return new Generator().generate(input.transformed);
+    }
+}
@@ -0,0 +1,57 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.cache.RuleCache;
+import nl.han.ica.icss.parser.IncrementalParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares recompiling a large stylesheet after a one character edit, with an incremental parse and the RuleCache,
+ * with a full compile of the edited text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleCacheBenchmark {
+
+    @State(Scope.Thread)
+    public static class Editor {
+        @Param({"synthetic-1mb", "synthetic-8mb"})
+        public String input;
+
+        String text;
+        IncrementalParser parser;
+        RuleCache cache;
+        int digit;
+        boolean toggle;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+            parser = new IncrementalParser();
+            parser.parse(text);
+            cache = new RuleCache(1_000_000);
+            cache.compile(parser.getAST());
+            //The last digit of a pixel value halfway the stylesheet
+            digit = text.indexOf("px;", text.length() / 2) - 1;
+        }
+    }
+
+    @Benchmark
+    public CompilationResult editAndRecompile(Editor editor) {
+        editor.toggle = !editor.toggle;
+        editor.parser.edit(editor.digit, 1, editor.toggle ? "1" : "2");
+        return editor.cache.compile(editor.parser.getAST());
+    }
+
+    @Benchmark
+    public CompilationResult compileFull(Editor editor) {
+        return new IcssCompiler().compile(editor.text);
+    }
+}
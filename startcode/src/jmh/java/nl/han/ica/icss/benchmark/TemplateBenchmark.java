@@ -0,0 +1,46 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.template.StylesheetTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering one theme from a compiled StylesheetTemplate with a full compile of the stylesheet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"level3.icss", "synthetic-1mb"})
+        public String input;
+
+        String text;
+        StylesheetTemplate template;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            text = BenchmarkInputs.load(input);
+            template = StylesheetTemplate.compile(BenchmarkInputs.parse(text));
+        }
+    }
+
+    @Benchmark
+    public String render(Input input) {
+        return input.template.render(Map.of());
+    }
+
+    @Benchmark
+    public CompilationResult compileFull(Input input) {
+        return new IcssCompiler().compile(input.text);
+    }
+}
@@ -0,0 +1,41 @@
+package nl.han.ica.icss.benchmark;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression benchmark for checking chains of variables that reference the previous variable twice,
+ * like generated design-token files. Checking must stay linear in the chain depth.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariableChainBenchmark {
+
+    @Param({"8", "16", "24", "256"})
+    public int depth;
+
+    private AST ast;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var sb = new StringBuilder("V0 := 1px;\n");
+        for (int i = 1; i <= depth; i++) {
+            sb.append('V').append(i).append(" := V").append(i - 1).append(" + V").append(i - 1).append(";\n");
+        }
+        sb.append("p {\n\twidth: V").append(depth).append(";\n}\n");
+        ast = BenchmarkInputs.parse(sb.toString());
+    }
+
+    @Benchmark
+    public AST check() {
+        new Checker().check(ast);
+        return ast;
+    }
+}
@@ -0,0 +1,31 @@
+package nl.han.ica.datastructures;
+
+public interface IHANScope<T> {
+    /**
+     * Binds value to name in this scope, replacing an earlier binding of name in this scope
+     * @param name the name to bind
+     * @param value the value to bind, not null
+     */
+    void declare(String name, T value);
+
+    /**
+     * Looks up name in this scope and then in the enclosing scopes, the innermost binding wins
+     * @param name the name to look up
+     * @return the bound value or null when name is not declared
+     */
+    T lookup(String name);
+
+    /**
+     * Checks whether name is declared in this scope or an enclosing scope
+     * @param name the name to look up
+     * @return true when declared, false otherwise
+     */
+    boolean isDeclared(String name);
+
+    /**
+     * Creates an empty scope enclosed by this scope. Declarations in the child are not visible in this scope,
+     * later declarations in this scope are visible in the child
+     * @return the child scope
+     */
+    IHANScope<T> createChild();
+}
@@ -0,0 +1,59 @@
+package nl.han.ica.datastructures;
+
+import java.util.HashMap;
+
+/**
+ * Scope chain with a hash table per scope. A lookup costs one hash probe per enclosing scope,
+ * independent of the number of declared names. A child is a single object with a parent pointer;
+ * its table is only created on the first declaration.
+ *
+ * A child does not copy its parent, lookups read the live parent scopes. A declaration in a parent
+ * after createChild is therefore visible in the existing children, so callers that need the bindings
+ * at the time the child was created must not declare in the parent while that child is in use.
+ */
+public class MyHanScope<T> implements IHANScope<T> {
+    private final MyHanScope<T> parent;
+    private HashMap<String, T> bindings;
+
+    public MyHanScope() {
+        this(null);
+    }
+
+    private MyHanScope(MyHanScope<T> parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public void declare(String name, T value) {
+        if (bindings == null) bindings = new HashMap<>();
+        bindings.put(name, value);
+    }
+
+    @Override
+    public T lookup(String name) {
+        var current = this;
+        while (current != null) {
+            if (current.bindings != null) {
+                var value = current.bindings.get(name);
+                if (value != null) return value;
+            }
+            current = current.parent;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isDeclared(String name) {
+        var current = this;
+        while (current != null) {
+            if (current.bindings != null && current.bindings.containsKey(name)) return true;
+            current = current.parent;
+        }
+        return false;
+    }
+
+    @Override
+    public IHANScope<T> createChild() {
+        return new MyHanScope<>(this);
+    }
+}
@@ -0,0 +1,63 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+
+import java.util.List;
+
+/**
+ * Immutable outcome of one compile by the IcssCompiler.
+ * The diagnostics contain the syntax and semantic errors in the order they were found,
+ * the css is only available when every stage succeeded.
+ *
+ * Results of a cache can have css without a transformed AST. The CompileCache returns no AST,
+ * with the flags of the compile it stored. The RuleCache returns the checked AST it was given,
+ * so its results are never transformed. The diagnostics are complete in every result,
+ * the nodes of an AST from a cache may not carry all errors.
+ */
+public final class CompilationResult {
+    private final AST ast;
+    private final List<String> diagnostics;
+    private final String css;
+    private final boolean parsed;
+    private final boolean checked;
+    private final boolean transformed;
+
+    public CompilationResult(AST ast, List<String> diagnostics, String css, boolean parsed, boolean checked, boolean transformed) {
+        this.ast = ast;
+        this.diagnostics = List.copyOf(diagnostics);
+        this.css = css;
+        this.parsed = parsed;
+        this.checked = checked;
+        this.transformed = transformed;
+    }
+
+    /**
+     * The AST after the last stage that ran. It belongs to this result only,
+     * no other compile shares it.
+     * @return the AST
+     */
+    public AST getAST() {
+        return ast;
+    }
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+    public String getCss() {
+        return css;
+    }
+    public boolean isParsed() {
+        return parsed;
+    }
+    public boolean isChecked() {
+        return checked;
+    }
+    /**
+     * @return true if the transform stage ran, the AST of this result is then transformed unless there is none
+     */
+    public boolean isTransformed() {
+        return transformed;
+    }
+    public boolean isSucceeded() {
+        return css != null;
+    }
+}
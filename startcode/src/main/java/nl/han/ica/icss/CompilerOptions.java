@@ -0,0 +1,92 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.trace.CompileTrace;
+
+/**
+ * Immutable settings of an IcssCompiler. Every with-method returns a changed copy.
+ */
+public final class CompilerOptions {
+    public static final CompilerOptions DEFAULT = new CompilerOptions(CompileTrace.NONE, false, false, true);
+
+    private final CompileTrace trace;
+    private final boolean fusedCheckAndTransform;
+    private final boolean directParser;
+    private final boolean buildParseTree;
+
+    private CompilerOptions(CompileTrace trace, boolean fusedCheckAndTransform, boolean directParser, boolean buildParseTree) {
+        this.trace = trace;
+        this.fusedCheckAndTransform = fusedCheckAndTransform;
+        this.directParser = directParser;
+        this.buildParseTree = buildParseTree;
+    }
+
+    public CompileTrace getTrace() {
+        return trace;
+    }
+
+    public boolean isFusedCheckAndTransform() {
+        return fusedCheckAndTransform;
+    }
+
+    public boolean isDirectParser() {
+        return directParser;
+    }
+
+    public boolean isBuildParseTree() {
+        return buildParseTree;
+    }
+
+    /**
+     * @param trace receives the check and transform events of every compile, it must be thread-safe
+     *              when the compiler is shared
+     * @return copy of these options with the given trace
+     */
+    public CompilerOptions withTrace(CompileTrace trace) {
+        return new CompilerOptions(trace, fusedCheckAndTransform, directParser, buildParseTree);
+    }
+
+    /**
+     * @param fusedCheckAndTransform true to check and transform in a single walk over the AST,
+     *                               the result is the same as with separate stages
+     * @return copy of these options with the given setting
+     */
+    public CompilerOptions withFusedCheckAndTransform(boolean fusedCheckAndTransform) {
+        return new CompilerOptions(trace, fusedCheckAndTransform, directParser, buildParseTree);
+    }
+
+    /**
+     * @param directParser true to parse with the hand-written DirectParser instead of ANTLR,
+     *                     the AST is the same but syntax errors are reported differently
+     * @return copy of these options with the given setting
+     */
+    public CompilerOptions withDirectParser(boolean directParser) {
+        return new CompilerOptions(trace, fusedCheckAndTransform, directParser, buildParseTree);
+    }
+
+    /**
+     * @param buildParseTree false to let the ANTLR parser build the AST while parsing, without a parse tree,
+     *                       which lowers the peak memory of large compiles
+     * @return copy of these options with the given setting
+     */
+    public CompilerOptions withBuildParseTree(boolean buildParseTree) {
+        return new CompilerOptions(trace, fusedCheckAndTransform, directParser, buildParseTree);
+    }
+
+    /**
+     * The options that can make a difference to the css or the diagnostics of a compile, as a string.
+     * The trace only observes a compile and is not part of it, and with or without parse tree the AST is the same.
+     * @return key of these options for a compile cache
+     */
+    public String getCacheKey() {
+        return "fused=" + fusedCheckAndTransform + ";direct=" + directParser;
+    }
+
+    /**
+     * Configures a fresh Pipeline according to these options.
+     */
+    void applyTo(Pipeline pipeline) {
+        pipeline.setTrace(trace);
+        pipeline.setDirectParser(directParser);
+        pipeline.setBuildParseTree(buildParseTree);
+    }
+}
@@ -0,0 +1,94 @@
+package nl.han.ica.icss;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Stateless facade over the compiler stages.
+ * Every call gets its own Pipeline, and with it its own AST and error sink,
+ * so a single IcssCompiler can be shared between threads.
+ */
+public class IcssCompiler {
+    /**
+     * Version of the compiler, the same as the version in the pom.
+     */
+    public static final String VERSION = "2020.1.0-September";
+    /**
+     * Version of the cached results and ASTs, part of every cache key together with VERSION.
+     * Bump it with every change that may change the AST, the diagnostics or the CSS of an input,
+     * so entries written by an older compiler are never used.
+     */
+    public static final int CACHE_FORMAT = 2;
+
+    private final CompilerOptions options;
+
+    public IcssCompiler() {
+        this(CompilerOptions.DEFAULT);
+    }
+
+    public IcssCompiler(CompilerOptions options) {
+        this.options = options;
+    }
+
+    public CompilerOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Parses, checks, transforms and generates the given ICSS.
+     * Stops after the first stage that reports errors.
+     * @param input the ICSS source
+     * @return the immutable result of this compile
+     */
+    public CompilationResult compile(CharSequence input) {
+        var pipeline = new Pipeline();
+        options.applyTo(pipeline);
+        pipeline.parseString(input.toString());
+        return compile(pipeline);
+    }
+
+    /**
+     * Compiles a UTF-8 file like compile(CharSequence), without reading the whole file into a String.
+     * @param file the ICSS file
+     * @return the immutable result of this compile
+     * @throws IOException when the file can not be read
+     */
+    public CompilationResult compile(Path file) throws IOException {
+        var pipeline = new Pipeline();
+        options.applyTo(pipeline);
+        pipeline.parseFile(file);
+        return compile(pipeline);
+    }
+
+    private CompilationResult compile(Pipeline pipeline) {
+        if (!pipeline.isParsed()) {
+            return result(pipeline, null);
+        }
+        if (options.isFusedCheckAndTransform()) {
+            pipeline.checkAndTransform();
+        } else if (pipeline.check()) {
+            pipeline.transform();
+        }
+        if (!pipeline.isTransformed()) {
+            return result(pipeline, null);
+        }
+        return result(pipeline, pipeline.generate());
+    }
+
+    /**
+     * Compiles the given ICSS on the given executor.
+     * @param input the ICSS source, it must not be modified until the future completes
+     * @param executor executor to run the compile on
+     * @return future completing with the result of the compile
+     */
+    public CompletableFuture<CompilationResult> compileAsync(CharSequence input, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> compile(input), executor);
+    }
+
+    private CompilationResult result(Pipeline pipeline, String css) {
+        return new CompilationResult(pipeline.getAST(), pipeline.getErrors(), css,
+                pipeline.isParsed(), pipeline.isChecked(), pipeline.isTransformed());
+    }
+}
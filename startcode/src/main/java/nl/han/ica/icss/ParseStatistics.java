@@ -0,0 +1,155 @@
+package nl.han.ica.icss;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Counters of one parse by a Pipeline: whether the fast SLL stage had to fall back to full LL prediction,
+ * how often full-context prediction was needed and, when profiling was on, the cost of every grammar decision.
+ */
+public final class ParseStatistics {
+    static final ParseStatistics NONE = new ParseStatistics(0, false, 0, 0, 0, List.of());
+
+    private final long nanos;
+    private final boolean llFallback;
+    private final int fullContextAttempts;
+    private final int contextSensitivities;
+    private final int ambiguities;
+    private final List<DecisionProfile> decisions;
+
+    ParseStatistics(long nanos, boolean llFallback, int fullContextAttempts, int contextSensitivities,
+                    int ambiguities, List<DecisionProfile> decisions) {
+        this.nanos = nanos;
+        this.llFallback = llFallback;
+        this.fullContextAttempts = fullContextAttempts;
+        this.contextSensitivities = contextSensitivities;
+        this.ambiguities = ambiguities;
+        this.decisions = decisions;
+    }
+
+    /**
+     * @return time spent lexing, parsing and building the AST, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+    /**
+     * @return true if SLL prediction failed and the input was parsed again with full LL prediction
+     */
+    public boolean isLlFallback() {
+        return llFallback;
+    }
+    /**
+     * @return number of predictions that had to use the full parser context
+     */
+    public int getFullContextAttempts() {
+        return fullContextAttempts;
+    }
+    /**
+     * @return number of full-context predictions that chose another alternative than SLL prediction would have
+     */
+    public int getContextSensitivities() {
+        return contextSensitivities;
+    }
+    /**
+     * @return number of ambiguities found by full-context prediction
+     */
+    public int getAmbiguities() {
+        return ambiguities;
+    }
+    /**
+     * @return cost of every grammar decision that was predicted, empty when profiling was off
+     */
+    public List<DecisionProfile> getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Formats the profiled decisions, the slowest first.
+     * @return one line per decision
+     */
+    public String formatDecisions() {
+        var sorted = new ArrayList<>(decisions);
+        sorted.sort(Comparator.comparingLong(DecisionProfile::getNanos).reversed());
+        var report = new StringBuilder();
+        report.append(String.format("%-8s %-22s %10s %10s %8s %8s %8s%n",
+                "decision", "rule", "time (us)", "calls", "SLL look", "LL look", "fallback"));
+        for (var decision : sorted) {
+            report.append(String.format("%-8d %-22s %10d %10d %8d %8d %8d%n",
+                    decision.decision, decision.rule, decision.nanos / 1000, decision.invocations,
+                    decision.sllLookahead, decision.llLookahead, decision.llFallbacks));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("parse: %d ms, %s, %d full-context attempts, %d context sensitivities, %d ambiguities",
+                nanos / 1_000_000, llFallback ? "LL fallback" : "SLL", fullContextAttempts, contextSensitivities, ambiguities);
+    }
+
+    /**
+     * Profile of one decision of the grammar, as measured by ANTLR's ProfilingATNSimulator.
+     */
+    public static final class DecisionProfile {
+        private final int decision;
+        private final String rule;
+        private final long invocations;
+        private final long nanos;
+        private final long sllLookahead;
+        private final long llLookahead;
+        private final long llFallbacks;
+
+        DecisionProfile(int decision, String rule, long invocations, long nanos,
+                        long sllLookahead, long llLookahead, long llFallbacks) {
+            this.decision = decision;
+            this.rule = rule;
+            this.invocations = invocations;
+            this.nanos = nanos;
+            this.sllLookahead = sllLookahead;
+            this.llLookahead = llLookahead;
+            this.llFallbacks = llFallbacks;
+        }
+
+        /**
+         * @return number of the decision in the grammar's ATN
+         */
+        public int getDecision() {
+            return decision;
+        }
+        /**
+         * @return name of the grammar rule the decision is in
+         */
+        public String getRule() {
+            return rule;
+        }
+        public long getInvocations() {
+            return invocations;
+        }
+        /**
+         * @return time spent predicting this decision, in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+        /**
+         * @return total number of tokens looked at by SLL prediction
+         */
+        public long getSllLookahead() {
+            return sllLookahead;
+        }
+        /**
+         * @return total number of tokens looked at by full-context prediction
+         */
+        public long getLlLookahead() {
+            return llLookahead;
+        }
+        /**
+         * @return number of predictions that fell back from SLL to full-context prediction
+         */
+        public long getLlFallbacks() {
+            return llFallbacks;
+        }
+    }
+}
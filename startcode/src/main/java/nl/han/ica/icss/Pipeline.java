@@ -4,20 +4,33 @@ import nl.han.ica.icss.ast.AST;
 import nl.han.ica.icss.checker.Checker;
 import nl.han.ica.icss.checker.SemanticError;
 import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTBuilder;
 import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.DirectParser;
 import nl.han.ica.icss.parser.ICSSLexer;
 import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.IncrementalParser;
+import nl.han.ica.icss.parser.MappedCharStream;
+import nl.han.ica.icss.parser.ParallelParser;
+import nl.han.ica.icss.trace.CompileTrace;
+import nl.han.ica.icss.transforms.CheckingEvaluator;
 import nl.han.ica.icss.transforms.Evaluator;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class Pipeline implements ANTLRErrorListener {
 
@@ -26,11 +39,83 @@ public class Pipeline implements ANTLRErrorListener {
     private boolean checked = false;
     private boolean transformed = false;
     private List<String> errors;
+    private CompileTrace trace = CompileTrace.NONE;
+    //Source of the current AST, kept for parseEdit, null while the IncrementalParser holds the text
+    private String source;
+    //Input of a parseFile, only decoded into source when it is edited
+    private CharStream sourceStream;
+    //Parser that keeps the AST in sync with edits, null until the first edit and after a transform
+    private IncrementalParser incremental;
+    private boolean profiling = false;
+    private boolean directParser = false;
+    private boolean buildParseTree = true;
+    //Executor of the ParallelParser, null to parse on the calling thread
+    private Executor parseExecutor;
+    private int parseParallelism;
+    private ParseStatistics parseStatistics = ParseStatistics.NONE;
+    //Counters of the current parse, reported by the parser through this listener
+    private int fullContextAttempts;
+    private int contextSensitivities;
+    private int ambiguities;
 
     public Pipeline() {
         errors = new ArrayList<>();
     }
 
+    /**
+     * Sets the trace that receives the events of the check and transform stages, tracing is off by default.
+     * @param trace the trace, or CompileTrace.NONE to turn tracing off
+     */
+    public void setTrace(CompileTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Turns profiling of the grammar decisions on or off, it is off by default because it slows the parser down.
+     * @param profiling true to measure every decision in the ParseStatistics of the following parses
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    /**
+     * Chooses between the ANTLR parser, the default, and the DirectParser. Both build the same AST from valid input,
+     * the DirectParser is faster but stops at the first syntax error and does not fill the ParseStatistics counters.
+     * @param directParser true to parse with the DirectParser
+     */
+    public void setDirectParser(boolean directParser) {
+        this.directParser = directParser;
+    }
+
+    /**
+     * Chooses how the ANTLR parser builds the AST. By default it builds a parse tree that the ASTListener walks afterwards.
+     * Without parse tree an ASTBuilder creates the AST nodes while the parser reduces the rules,
+     * so the parse tree of a large input never has to fit in memory next to its AST.
+     * @param buildParseTree false to build the AST during parsing
+     */
+    public void setBuildParseTree(boolean buildParseTree) {
+        this.buildParseTree = buildParseTree;
+    }
+
+    /**
+     * Lets parseString split large stylesheets at style rule boundaries and parse the pieces on the executor.
+     * The AST is the same, and syntax errors have the same form as those of a sequential parse.
+     * The DirectParser, when chosen, is always used on the calling thread.
+     * @param executor executor to parse on, or null to parse on the calling thread
+     * @param parallelism number of threads of the executor
+     */
+    public void setParallelParsing(Executor executor, int parallelism) {
+        this.parseExecutor = executor;
+        this.parseParallelism = parallelism;
+    }
+
+    /**
+     * @return the counters of the last parseString or parseFile
+     */
+    public ParseStatistics getParseStatistics() {
+        return parseStatistics;
+    }
+
     public AST getAST() {
         return ast;
     }
@@ -47,10 +132,90 @@ public class Pipeline implements ANTLRErrorListener {
         return transformed;
     }
 
+    /**
+     * Parses input with fast SLL prediction first. SLL prediction never reports a syntax error for valid input,
+     * but it can fail on input that only full LL prediction can parse, so on any error the input is parsed again
+     * with full LL prediction, which also reports the syntax errors.
+     * @param input the ICSS source
+     */
     public void parseString(String input) {
+        source = input;
+        sourceStream = null;
+        if (directParser) {
+            parseDirect(input);
+        } else if (parseExecutor != null) {
+            parseParallel(input);
+        } else {
+            parse(CharStreams.fromString(input));
+        }
+    }
+
+    /**
+     * Parses a UTF-8 file like parseString. The file is memory-mapped and lexed in place,
+     * so even very large files are not copied into memory as a whole.
+     * @param file the ICSS file
+     * @throws IOException when the file can not be read
+     */
+    public void parseFile(Path file) throws IOException {
+        source = null;
+        sourceStream = MappedCharStream.open(file);
+        if (!directParser) {
+            parse(sourceStream);
+        } else if (sourceStream instanceof CharSequence) {
+            parseDirect((CharSequence) sourceStream);
+        } else {
+            parseDirect(sourceStream.toString());
+        }
+    }
+
+    /**
+     * Uses an AST that was parsed before, e.g. loaded from its binary form, instead of parsing.
+     * The AST must be free of syntax errors, it cannot be edited with parseEdit because its source is unknown.
+     * @param ast the parsed AST, it is checked and transformed in place
+     */
+    public void loadAST(AST ast) {
+        source = null;
+        sourceStream = null;
+        incremental = null;
+        this.ast = ast;
+        errors.clear();
+        parsed = true;
+        checked = transformed = false;
+        parseStatistics = ParseStatistics.NONE;
+    }
+
+    private void parseParallel(String input) {
+        incremental = null;
+        var start = System.nanoTime();
+        var parser = new ParallelParser(parseExecutor, parseParallelism);
+        ast = parser.parse(input);
+        errors.clear();
+        errors.addAll(parser.getErrors());
+        parsed = errors.isEmpty();
+        checked = transformed = false;
+        parseStatistics = new ParseStatistics(System.nanoTime() - start, false, 0, 0, 0, List.of());
+    }
+
+    private void parseDirect(CharSequence input) {
+        incremental = null;
+        var start = System.nanoTime();
+        var parser = new DirectParser(input);
+        ast = parser.parse();
+        errors.clear();
+        errors.addAll(parser.getErrors());
+        parsed = errors.isEmpty();
+        checked = transformed = false;
+        parseStatistics = new ParseStatistics(System.nanoTime() - start, false, 0, 0, 0, List.of());
+    }
+
+    private void parse(CharStream inputStream) {
+        incremental = null;
+        var start = System.nanoTime();
+        fullContextAttempts = contextSensitivities = ambiguities = 0;
+        var llFallback = false;
+        ICSSParser parser = null;
 
         //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
         ICSSLexer lexer = new ICSSLexer(inputStream);
         lexer.removeErrorListeners();
         lexer.addErrorListener(this);
@@ -58,19 +223,47 @@ public class Pipeline implements ANTLRErrorListener {
         try {
             CommonTokenStream tokens = new CommonTokenStream(lexer);
 
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
+            //Parse (with Antlr's generated parser), first with SLL prediction that gives up on the first error
+            parser = new ICSSParser(tokens);
+            parser.setProfile(profiling);
             parser.removeErrorListeners();
-            parser.addErrorListener(this);
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.setBuildParseTree(buildParseTree);
+            var builder = buildParseTree ? null : new ASTBuilder();
+            if (builder != null) {
+                parser.addParseListener(builder);
+            }
 
-            ParseTree parseTree = parser.stylesheet();
+            ParseTree parseTree;
+            try {
+                parseTree = parser.stylesheet();
+            } catch (ParseCancellationException e) {
+                //Then with full LL prediction and error recovery, from the tokens already lexed
+                llFallback = true;
+                tokens.seek(0);
+                parser.reset();
+                parser.addErrorListener(this);
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parser.setErrorHandler(new DefaultErrorStrategy());
+                if (builder != null) {
+                    parser.removeParseListeners();
+                    builder = new ASTBuilder();
+                    parser.addParseListener(builder);
+                }
+                parseTree = parser.stylesheet();
+            }
 
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
+            if (builder != null) {
+                this.ast = builder.getAST();
+            } else {
+                //Extract AST from the Antlr parse tree
+                ASTListener listener = new ASTListener();
+                ParseTreeWalker walker = new ParseTreeWalker();
+                walker.walk(listener, parseTree);
 
-            this.ast = listener.getAST();
+                this.ast = listener.getAST();
+            }
 
         } catch (RecognitionException e) {
             this.ast = new AST();
@@ -82,12 +275,77 @@ public class Pipeline implements ANTLRErrorListener {
         }
         parsed = errors.isEmpty();
         checked = transformed = false;
+        parseStatistics = new ParseStatistics(System.nanoTime() - start, llFallback,
+                fullContextAttempts, contextSensitivities, ambiguities, profileOf(parser));
+    }
+
+    private List<ParseStatistics.DecisionProfile> profileOf(ICSSParser parser) {
+        if (parser == null || parser.getParseInfo() == null) {
+            return List.of();
+        }
+        var decisions = new ArrayList<ParseStatistics.DecisionProfile>();
+        for (var info : parser.getParseInfo().getDecisionInfo()) {
+            if (info.invocations == 0) {
+                continue;
+            }
+            var rule = parser.getRuleNames()[parser.getATN().getDecisionState(info.decision).ruleIndex];
+            decisions.add(new ParseStatistics.DecisionProfile(info.decision, rule, info.invocations, info.timeInPrediction,
+                    info.SLL_TotalLook, info.LL_TotalLook, info.LL_Fallback));
+        }
+        return decisions;
+    }
+
+    /**
+     * Applies an edit to the source of the last parse and parses only the style rules and variable assignments it touches.
+     * The unchanged nodes of the AST are kept. After a transform the AST no longer matches the source,
+     * then the edited source is parsed completely.
+     * Edits are always parsed by the IncrementalParser with Antlr's parser, the parser options only apply to
+     * parseString and parseFile. The ParseStatistics of an edit only contain the time it took.
+     * @param offset offset of the first replaced character in the source
+     * @param length number of replaced characters, 0 for an insert
+     * @param replacement the new text, empty for a delete
+     */
+    public void parseEdit(int offset, int length, String replacement) {
+        if (source == null && sourceStream != null) {
+            source = sourceStream.getText(Interval.of(0, sourceStream.size() - 1));
+            sourceStream = null;
+        }
+        if (source == null && incremental == null) {
+            throw new IllegalStateException("Nothing parsed to edit");
+        }
+        var start = System.nanoTime();
+        if (incremental == null) {
+            incremental = new IncrementalParser();
+            incremental.parse(source.substring(0, offset) + replacement + source.substring(offset + length));
+            //The IncrementalParser holds the text from now on, it is only copied back when the parser is dropped
+            source = null;
+        } else {
+            incremental.edit(offset, length, replacement);
+        }
+        ast = incremental.getAST();
+        errors.clear();
+        errors.addAll(incremental.getErrors());
+        parsed = errors.isEmpty();
+        checked = transformed = false;
+        parseStatistics = new ParseStatistics(System.nanoTime() - start, false, 0, 0, 0, List.of());
+    }
+
+    /**
+     * Drops the IncrementalParser after a transform, keeping its text as the source for the next edit.
+     */
+    private void dropIncremental() {
+        if (incremental != null) {
+            source = incremental.getText();
+            incremental = null;
+        }
     }
     public boolean check() {
             if(ast == null)
                 return false;
 
-           (new Checker()).check(this.ast);
+           //Nodes kept by an incremental parse may still carry errors of the previous check
+           this.ast.clearErrors();
+           (new Checker(trace)).check(this.ast);
 
             ArrayList<SemanticError> errors = this.ast.getErrors();
             if (!errors.isEmpty()) {
@@ -109,30 +367,76 @@ public class Pipeline implements ANTLRErrorListener {
         if(ast == null)
             return;
 
-        (new Evaluator()).apply(ast);
+        (new Evaluator(trace)).apply(ast);
+        dropIncremental();
 
 
         transformed = errors.isEmpty();
     }
+    /**
+     * Checks and transforms the AST in a single walk, with the same outcome as check() followed by transform().
+     * The AST is only transformed when it has no semantic errors.
+     * @return true if the AST has no semantic errors
+     */
+    public boolean checkAndTransform() {
+        if (ast == null)
+            return false;
+
+        this.ast.clearErrors();
+        (new CheckingEvaluator(trace)).apply(ast);
+        dropIncremental();
+
+        ArrayList<SemanticError> errors = this.ast.getErrors();
+        for (SemanticError e : errors) {
+            this.errors.add(e.toString());
+        }
+
+        checked = errors.isEmpty();
+        transformed = checked && this.errors.isEmpty();
+        return checked;
+    }
+
     public String generate() {
         Generator generator = new Generator();
         return generator.generate(ast);
     }
 
+    /**
+     * Streams the generated CSS to out instead of building it in memory,
+     * use this for large stylesheets written to a file or socket.
+     * @param out destination of the generated CSS
+     * @throws IOException when writing to out fails
+     */
+    public void generate(Appendable out) throws IOException {
+        (new Generator()).generate(ast, out);
+    }
+
+    /**
+     * Streams the generated CSS as UTF-8 to out. The stream is flushed, not closed.
+     * @param out destination of the generated CSS
+     * @throws IOException when writing to out fails
+     */
+    public void generate(OutputStream out) throws IOException {
+        (new Generator()).generate(ast, out);
+    }
+
     //Catch ANTLR errors
     @Override
     public void reportAmbiguity(Parser arg0, DFA arg1, int arg2, int arg3,
                                 boolean arg4, BitSet arg5, ATNConfigSet arg6) {
+        ambiguities++;
     }
 
     @Override
     public void reportAttemptingFullContext(Parser arg0, DFA arg1, int arg2,
                                             int arg3, BitSet arg4, ATNConfigSet arg5) {
+        fullContextAttempts++;
     }
 
     @Override
     public void reportContextSensitivity(Parser arg0, DFA arg1, int arg2,
                                          int arg3, int arg4, ATNConfigSet arg5) {
+        contextSensitivities++;
     }
 
     @Override
@@ -0,0 +1,182 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.datastructures.MyHanScope;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTBuilder;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a stylesheet of any size in constant memory. The input is lexed and parsed through unbuffered streams
+ * without a parse tree, and every style rule is checked, transformed and written as soon as it is parsed.
+ * Only the global variables are kept, so the first CSS is written long before the end of the input is read.
+ *
+ * The css of a stylesheet without errors is the same as that of the IcssCompiler. Output that was written before
+ * an error was found can not be taken back: after the first error nothing more is written, but the rest of the
+ * input is still checked, so the errors are the same as those of a full compile. Like the Pipeline, a compile
+ * with syntax errors only returns those, the semantic errors found before the first syntax error are dropped.
+ * When errors are returned the caller should discard the output.
+ * A StreamingCompiler has no state and can be shared between threads.
+ */
+public class StreamingCompiler {
+    //Characters and tokens held for lookahead, the streams grow beyond this only while the parser needs more
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Compiles UTF-8 input to UTF-8 output. The output is flushed, neither stream is closed.
+     * @param in the ICSS source
+     * @param out destination of the generated CSS
+     * @return the syntax and semantic errors, empty when the complete css was written
+     * @throws IOException when reading or writing fails
+     */
+    public List<String> compile(InputStream in, OutputStream out) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        var errors = compile(new InputStreamReader(in, StandardCharsets.UTF_8), writer);
+        writer.flush();
+        return errors;
+    }
+
+    /**
+     * Compiles the input, writing the css of every style rule to out as soon as it is parsed.
+     * @param in the ICSS source
+     * @param out destination of the generated CSS
+     * @return the syntax and semantic errors, empty when the complete css was written
+     * @throws IOException when reading or writing fails
+     */
+    public List<String> compile(Reader in, Appendable out) throws IOException {
+        var compile = new Compile(out);
+
+        var lexer = new ICSSLexer(new UnbufferedCharStream(in, BUFFER_SIZE));
+        //The characters of a token are gone once the lexer moves on, so tokens keep a copy of their text
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(compile);
+
+        var parser = new ICSSParser(new UnbufferedTokenStream<>(lexer, BUFFER_SIZE));
+        parser.removeErrorListeners();
+        parser.addErrorListener(compile);
+        parser.setErrorHandler(new StreamingErrorStrategy());
+        parser.setBuildParseTree(false);
+        parser.addParseListener(new ASTBuilder(compile::accept));
+        try {
+            parser.stylesheet();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return compile.getErrors();
+    }
+
+    /**
+     * The state of one compile: the global variables, the errors and whether output may still be written.
+     */
+    private static class Compile extends BaseErrorListener {
+        private final Appendable out;
+        private final Checker checker = new Checker();
+        private final Evaluator evaluator = new Evaluator();
+        private final MyHanScope<ExpressionType> globalTypes = new MyHanScope<>();
+        private final MyHanScope<Literal> globalValues = new MyHanScope<>();
+        //Semantic errors, only returned when the input has no syntax errors
+        private final List<String> errors = new ArrayList<>();
+        private final List<String> syntaxErrors = new ArrayList<>();
+        private boolean syntaxError;
+        private boolean firstRule = true;
+
+        private Compile(Appendable out) {
+            this.out = out;
+        }
+
+        /**
+         * @return the syntax errors, or the semantic errors when the input parsed
+         */
+        private List<String> getErrors() {
+            return syntaxError ? syntaxErrors : errors;
+        }
+
+        private void accept(ASTNode node) {
+            //After a syntax error the nodes can be incomplete, the rest is only parsed for its syntax errors
+            if (syntaxError) {
+                return;
+            }
+            if (node instanceof VariableAssignment) {
+                var assignment = (VariableAssignment) node;
+                checker.checkVariableAssignment(assignment, globalTypes);
+                if (!collectErrors(assignment) && errors.isEmpty()) {
+                    globalValues.declare(assignment.name.name, evaluator.transformExpression(assignment.expression, globalValues));
+                }
+            }
+
+            if (node instanceof Stylerule) {
+                var stylerule = (Stylerule) node;
+                checker.checkStylerule(stylerule, globalTypes);
+                if (!collectErrors(stylerule) && errors.isEmpty()) {
+                    write(evaluator.transformStylerule(stylerule, globalValues));
+                }
+            }
+        }
+
+        private void write(Stylerule stylerule) {
+            try {
+                //Rules are separated by a blank line, like the Generator does
+                if (!firstRule) out.append("\n\n");
+                new Generator().generateStyleRule(stylerule, out);
+                firstRule = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Adds the errors of node and its descendants in AST order.
+         * @return true if any error was found
+         */
+        private boolean collectErrors(ASTNode node) {
+            var found = node.hasError();
+            if (found) {
+                errors.add(node.getError().toString());
+            }
+            var count = node.getChildCount();
+            for (int i = 0; i < count; i++) {
+                found |= collectErrors(node.getChild(i));
+            }
+            return found;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            syntaxError = true;
+            syntaxErrors.add("Syntax error: " + msg);
+        }
+    }
+
+    /**
+     * The default strategy reports a missing alternative with the text of all tokens it considered,
+     * an unbuffered token stream no longer has those.
+     * Tokens copy their text, so the end of the input has an empty text instead of the &lt;EOF&gt; of the Pipeline.
+     */
+    private static class StreamingErrorStrategy extends DefaultErrorStrategy {
+        @Override
+        protected String getSymbolText(Token symbol) {
+            return symbol.getType() == Token.EOF ? "<EOF>" : super.getSymbolText(symbol);
+        }
+
+        @Override
+        protected void reportNoViableAlternative(Parser recognizer, NoViableAltException e) {
+            recognizer.notifyErrorListeners(e.getOffendingToken(),
+                    "no viable alternative at input " + getTokenErrorDisplay(e.getOffendingToken()), e);
+        }
+    }
+}
@@ -28,8 +28,22 @@ public class AST {
 	    if(node.hasError()) {
 	        errors.add(node.getError());
         }
-        for(ASTNode child: node.getChildren()) {
-	        collectErrors(errors,child);
+        var count = node.getChildCount();
+        for(int i = 0; i < count; i++) {
+	        collectErrors(errors,node.getChild(i));
+        }
+    }
+    /*
+     Removes the errors of a previous check, needed when an AST is checked again after an incremental parse.
+     */
+    public void clearErrors() {
+        clearErrors(root);
+    }
+    private void clearErrors(ASTNode node) {
+        node.clearError();
+        var count = node.getChildCount();
+        for(int i = 0; i < count; i++) {
+            clearErrors(node.getChild(i));
         }
     }
 	@Override
@@ -3,7 +3,7 @@ package nl.han.ica.icss.ast;
 import nl.han.ica.icss.checker.SemanticError;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 public class ASTNode {
 
@@ -24,6 +24,22 @@ public class ASTNode {
     public ArrayList<ASTNode> getChildren() {
         return new ArrayList<>();
     }
+    /*
+     getChildCount and getChild give the same children as getChildren, in the same order,
+     without allocating a list. Use these when walking the whole tree.
+     */
+    public int getChildCount() {
+        return 0;
+    }
+    public ASTNode getChild(int index) {
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + getChildCount());
+    }
+    public void forEachChild(Consumer<ASTNode> action) {
+        var count = getChildCount();
+        for (int i = 0; i < count; i++) {
+            action.accept(getChild(i));
+        }
+    }
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
@@ -50,6 +66,10 @@ public class ASTNode {
         return error != null;
     }
 
+    public void clearError() {
+        this.error = null;
+    }
+
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder();
@@ -60,9 +80,10 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		var count = getChildCount();
+		for(int i = 0; i < count; i++) {
+			getChild(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
@@ -71,12 +92,12 @@ public class ASTNode {
         if(! (o instanceof ASTNode))
             return false;
         //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
+        ASTNode other = (ASTNode) o;
+        int count = this.getChildCount();
+        if(other.getChildCount() != count)
             return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
+        for(int i = 0; i < count; i++ ) {
+            if(!this.getChild(i).equals(other.getChild(i))) {
                 return false;
             }
         }
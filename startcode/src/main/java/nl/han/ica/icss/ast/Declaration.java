@@ -33,6 +33,18 @@ public class Declaration extends ASTNode {
 		return children;
 	}
 	@Override
+	public int getChildCount() {
+		return (property != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		if(index == 0 && property != null)
+			return property;
+		if(index >= 0 && index < getChildCount() && expression != null)
+			return expression;
+		return super.getChild(index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
 		if(child instanceof PropertyName) {
 			property = (PropertyName) child;
@@ -26,6 +26,15 @@ public class ElseClause extends ASTNode{
         return children;
     }
 
+    @Override
+    public int getChildCount() {
+        return body.size();
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        return body.get(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
 
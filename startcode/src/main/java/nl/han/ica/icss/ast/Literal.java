@@ -1,4 +1,33 @@
 package nl.han.ica.icss.ast;
 
+/**
+ * Literals are immutable. The of-methods of the literal classes return shared instances,
+ * so one literal can appear at several places in the AST and must never be given a semantic error.
+ */
 public abstract class Literal extends Expression {
+
+    /**
+     * Parses the decimal digits at the start of text up to end, without creating a substring.
+     * @param text the text of a literal token
+     * @param end index after the last digit
+     * @return the value of the digits
+     * @throws NumberFormatException when the digits are not a valid int
+     */
+    protected static int parseDigits(CharSequence text, int end) {
+        if (end <= 0) {
+            throw new NumberFormatException("No digits in \"" + text + "\"");
+        }
+        int value = 0;
+        for (int i = 0; i < end; i++) {
+            var digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + text + "\"");
+            }
+            if (value > (Integer.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("Value out of range: \"" + text + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
 }
@@ -17,6 +17,19 @@ public abstract class Operation extends Expression {
         return children;
     }
 
+    @Override
+    public int getChildCount() {
+        return (lhs != null ? 1 : 0) + (rhs != null ? 1 : 0);
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        if(index == 0 && lhs != null)
+            return lhs;
+        if(index >= 0 && index < getChildCount() && rhs != null)
+            return rhs;
+        return super.getChild(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
         if(lhs == null) {
@@ -30,6 +30,17 @@ public class Stylerule extends ASTNode {
 		return children;
 	}
 
+	@Override
+	public int getChildCount() {
+		return selectors.size() + body.size();
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		if(index < selectors.size())
+			return selectors.get(index);
+		return body.get(index - selectors.size());
+	}
+
     @Override
     public ASTNode addChild(ASTNode child) {
 		if(child instanceof Selector)
@@ -39,6 +39,19 @@ public class VariableAssignment extends ASTNode {
 		return children;
 	}
 
+	@Override
+	public int getChildCount() {
+		return (name != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		if(index == 0 && name != null)
+			return name;
+		if(index >= 0 && index < getChildCount() && expression != null)
+			return expression;
+		return super.getChild(index);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -4,7 +4,10 @@ import nl.han.ica.icss.ast.Literal;
 import java.util.Objects;
 
 public class BoolLiteral extends Literal {
-    public boolean value;
+    public static final BoolLiteral TRUE = new BoolLiteral(true);
+    public static final BoolLiteral FALSE = new BoolLiteral(false);
+
+    public final boolean value;
 
     public BoolLiteral(boolean value) {
         this.value = value;
@@ -12,6 +15,23 @@ public class BoolLiteral extends Literal {
     public BoolLiteral(String text) {
         this.value = text.equals("TRUE");
     }
+
+    /**
+     * @param value the value
+     * @return the shared TRUE or FALSE instance
+     */
+    public static BoolLiteral of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * @param text the text of a TRUE or FALSE token
+     * @return the shared TRUE or FALSE instance
+     */
+    public static BoolLiteral parse(CharSequence text) {
+        return of("TRUE".contentEquals(text));
+    }
+
     @Override
     public String getNodeLabel() {
         String textValue = value ? "TRUE" : "FALSE";
@@ -5,11 +5,32 @@ import nl.han.ica.icss.ast.Literal;
 import java.util.Objects;
 
 public class ColorLiteral extends Literal {
-    public String value;
+    //Direct mapped table of recently used colors, a collision replaces the older color
+    private static final int INTERNED = 4096;
+    private static final ColorLiteral[] interned = new ColorLiteral[INTERNED];
+
+    public final String value;
 
     public ColorLiteral(String value) {
         this.value = value;
     }
+
+    /**
+     * Stylesheets use few distinct colors, so equal colors share one instance.
+     * The instances are immutable, a race on the table at worst creates an extra instance.
+     * @param value the color, e.g. #ff0000
+     * @return a shared instance for the color
+     */
+    public static ColorLiteral of(String value) {
+        var slot = value.hashCode() & (INTERNED - 1);
+        var literal = interned[slot];
+        if (literal == null || !literal.value.equals(value)) {
+            literal = new ColorLiteral(value);
+            interned[slot] = literal;
+        }
+        return literal;
+    }
+
     @Override
     public String getNodeLabel() {
         return "Color literal (" + value + ")";
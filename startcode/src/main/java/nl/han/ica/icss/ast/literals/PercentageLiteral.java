@@ -5,14 +5,33 @@ import nl.han.ica.icss.ast.Literal;
 import java.util.Objects;
 
 public class PercentageLiteral extends Literal {
-    public int value;
+    private static final SmallValueCache<PercentageLiteral> CACHE = new SmallValueCache<>(PercentageLiteral::new);
+
+    public final int value;
 
     public PercentageLiteral(int value) {
         this.value = value;
     }
     public PercentageLiteral(String text) {
-        this.value = Integer.parseInt(text.substring(0, text.length() - 1));
+        this.value = parseDigits(text, text.length() - 1);
+    }
+
+    /**
+     * @param value the value
+     * @return a shared instance for common values, a new one otherwise
+     */
+    public static PercentageLiteral of(int value) {
+        return CACHE.get(value);
     }
+
+    /**
+     * @param text the text of a PERCENTAGE token
+     * @return a shared instance for common values, a new one otherwise
+     */
+    public static PercentageLiteral parse(CharSequence text) {
+        return of(parseDigits(text, text.length() - 1));
+    }
+
     @Override
     public String getNodeLabel() {
         return "Percentage literal (" + value + ")";
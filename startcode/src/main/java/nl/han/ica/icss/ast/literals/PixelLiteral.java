@@ -5,14 +5,33 @@ import nl.han.ica.icss.ast.Literal;
 import java.util.Objects;
 
 public class PixelLiteral extends Literal {
-    public int value;
+    private static final SmallValueCache<PixelLiteral> CACHE = new SmallValueCache<>(PixelLiteral::new);
+
+    public final int value;
 
     public PixelLiteral(int value) {
         this.value = value;
     }
     public PixelLiteral(String text) {
-        this.value = Integer.parseInt(text.substring(0, text.length() - 2));
+        this.value = parseDigits(text, text.length() - 2);
+    }
+
+    /**
+     * @param value the value
+     * @return a shared instance for common values, a new one otherwise
+     */
+    public static PixelLiteral of(int value) {
+        return CACHE.get(value);
     }
+
+    /**
+     * @param text the text of a PIXELSIZE token
+     * @return a shared instance for common values, a new one otherwise
+     */
+    public static PixelLiteral parse(CharSequence text) {
+        return of(parseDigits(text, text.length() - 2));
+    }
+
     @Override
     public String getNodeLabel() {
         return "Pixel literal (" + value + ")";
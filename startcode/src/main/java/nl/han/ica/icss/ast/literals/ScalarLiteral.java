@@ -5,14 +5,33 @@ import nl.han.ica.icss.ast.Literal;
 import java.util.Objects;
 
 public class ScalarLiteral extends Literal {
-    public int value;
+    private static final SmallValueCache<ScalarLiteral> CACHE = new SmallValueCache<>(ScalarLiteral::new);
+
+    public final int value;
 
     public ScalarLiteral(int value) {
         this.value = value;
     }
     public ScalarLiteral(String text) {
-        this.value = Integer.parseInt(text);
+        this.value = parseDigits(text, text.length());
+    }
+
+    /**
+     * @param value the value
+     * @return a shared instance for common values, a new one otherwise
+     */
+    public static ScalarLiteral of(int value) {
+        return CACHE.get(value);
     }
+
+    /**
+     * @param text the text of a SCALAR token
+     * @return a shared instance for common values, a new one otherwise
+     */
+    public static ScalarLiteral parse(CharSequence text) {
+        return of(parseDigits(text, text.length()));
+    }
+
     @Override
     public String getNodeLabel() {
         return "Scalar literal (" + value + ")";
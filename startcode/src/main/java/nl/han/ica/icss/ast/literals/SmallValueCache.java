@@ -0,0 +1,31 @@
+package nl.han.ica.icss.ast.literals;
+
+import nl.han.ica.icss.ast.Literal;
+
+import java.util.function.IntFunction;
+
+/**
+ * Shared instances of a literal type for the values that occur most in stylesheets and folded operations.
+ */
+final class SmallValueCache<T extends Literal> {
+    private static final int LOW = -128;
+    private static final int HIGH = 1024;
+
+    private final Object[] instances = new Object[HIGH - LOW + 1];
+    private final IntFunction<T> factory;
+
+    SmallValueCache(IntFunction<T> factory) {
+        this.factory = factory;
+        for (int value = LOW; value <= HIGH; value++) {
+            instances[value - LOW] = factory.apply(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int value) {
+        if (value >= LOW && value <= HIGH) {
+            return (T) instances[value - LOW];
+        }
+        return factory.apply(value);
+    }
+}
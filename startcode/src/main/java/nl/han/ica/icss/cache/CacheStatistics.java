@@ -0,0 +1,70 @@
+package nl.han.ica.icss.cache;
+
+/**
+ * Snapshot of the counters of a CompileCache.
+ */
+public final class CacheStatistics {
+    private final long hits;
+    private final long diskHits;
+    private final long misses;
+    private final long evictions;
+    private final long storeFailures;
+    private final int entries;
+    private final long weight;
+
+    CacheStatistics(long hits, long diskHits, long misses, long evictions, long storeFailures, int entries, long weight) {
+        this.hits = hits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.storeFailures = storeFailures;
+        this.entries = entries;
+        this.weight = weight;
+    }
+
+    /**
+     * @return number of compiles answered from memory
+     */
+    public long getHits() {
+        return hits;
+    }
+    /**
+     * @return number of compiles answered from the disk store
+     */
+    public long getDiskHits() {
+        return diskHits;
+    }
+    /**
+     * @return number of compiles that ran the compiler
+     */
+    public long getMisses() {
+        return misses;
+    }
+    /**
+     * @return number of entries removed from memory to stay within the size bound
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+    /**
+     * @return number of results that could not be written to the disk store
+     */
+    public long getStoreFailures() {
+        return storeFailures;
+    }
+    public int getEntries() {
+        return entries;
+    }
+    /**
+     * @return estimated size of the entries in memory, in bytes
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache: %d hits, %d disk hits, %d misses, %d evictions, %d store failures, %d entries (%d KB)",
+                hits, diskHits, misses, evictions, storeFailures, entries, weight / 1024);
+    }
+}
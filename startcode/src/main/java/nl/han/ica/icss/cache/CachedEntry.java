@@ -0,0 +1,120 @@
+package nl.han.ica.icss.cache;
+
+import nl.han.ica.icss.CompilationResult;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The part of a CompilationResult that is kept in the cache: the css, the diagnostics and the stage flags.
+ */
+final class CachedEntry {
+    private static final int MAGIC = 0x49435353;
+    private static final byte FORMAT = 1;
+
+    private static final int PARSED = 1;
+    private static final int CHECKED = 2;
+    private static final int TRANSFORMED = 4;
+    private static final int HAS_CSS = 8;
+
+    //Rough size of the objects around the strings, only used to weigh entries
+    private static final int OVERHEAD = 64;
+
+    private final String css;
+    private final List<String> diagnostics;
+    private final int flags;
+    private final long weight;
+
+    private CachedEntry(String css, List<String> diagnostics, int flags) {
+        this.css = css;
+        this.diagnostics = diagnostics;
+        this.flags = flags;
+        this.weight = estimateWeight();
+    }
+
+    static CachedEntry of(CompilationResult result) {
+        var flags = (result.isParsed() ? PARSED : 0)
+                | (result.isChecked() ? CHECKED : 0)
+                | (result.isTransformed() ? TRANSFORMED : 0)
+                | (result.getCss() != null ? HAS_CSS : 0);
+        return new CachedEntry(result.getCss(), result.getDiagnostics(), flags);
+    }
+
+    /**
+     * @return a new result without AST, no stage ran for it
+     */
+    CompilationResult toResult() {
+        return new CompilationResult(null, diagnostics, css,
+                (flags & PARSED) != 0, (flags & CHECKED) != 0, (flags & TRANSFORMED) != 0);
+    }
+
+    /**
+     * @return estimated heap size of this entry in bytes
+     */
+    long weight() {
+        return weight;
+    }
+
+    private long estimateWeight() {
+        long weight = OVERHEAD + (css == null ? 0 : 2L * css.length());
+        for (var diagnostic : diagnostics) {
+            weight += OVERHEAD + 2L * diagnostic.length();
+        }
+        return weight;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+        out.writeByte(flags);
+        out.writeInt(diagnostics.size());
+        for (var diagnostic : diagnostics) {
+            writeString(out, diagnostic);
+        }
+        writeString(out, css == null ? "" : css);
+    }
+
+    /**
+     * @param buffer the stored entry
+     * @return the entry, or null if the buffer does not hold a complete entry of this format
+     */
+    static CachedEntry readFrom(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != FORMAT) {
+                return null;
+            }
+            int flags = buffer.get();
+            var count = buffer.getInt();
+            var diagnostics = new ArrayList<String>(Math.min(count, buffer.remaining() / 4));
+            for (int i = 0; i < count; i++) {
+                diagnostics.add(readString(buffer));
+            }
+            var css = readString(buffer);
+            return new CachedEntry((flags & HAS_CSS) != 0 ? css : null, List.copyOf(diagnostics), flags);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            //Truncated or damaged file
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
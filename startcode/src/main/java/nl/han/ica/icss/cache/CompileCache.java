@@ -0,0 +1,141 @@
+package nl.han.ica.icss.cache;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IcssCompiler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache in front of an IcssCompiler, keyed on a hash of the input, the compiler version and the options.
+ * A hit returns the stored css and diagnostics without parsing, checking, transforming or generating,
+ * so the result of a hit has no AST and the trace of the options receives no events.
+ *
+ * Entries are kept in memory up to a maximum size, the least recently used entries are evicted first.
+ * With a DiskStore every entry is also persisted, and a memory miss is looked up on disk before compiling.
+ * A result that cannot be persisted is still returned, the failure is only counted in the statistics.
+ * A CompileCache is thread-safe.
+ */
+public class CompileCache {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final IcssCompiler compiler;
+    private final long maxWeight;
+    private final DiskStore store;
+    private final String keyPrefix;
+
+    //Access ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<HashCode, CachedEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder storeFailures = new LongAdder();
+
+    /**
+     * @param compiler the compiler used on a miss
+     * @param maxWeight maximum estimated size of the entries in memory, in bytes
+     */
+    public CompileCache(IcssCompiler compiler, long maxWeight) {
+        this(compiler, maxWeight, null);
+    }
+
+    /**
+     * @param compiler the compiler used on a miss
+     * @param maxWeight maximum estimated size of the entries in memory, in bytes
+     * @param store persistent store shared with other caches, or null to keep entries in memory only
+     */
+    public CompileCache(IcssCompiler compiler, long maxWeight, DiskStore store) {
+        this.compiler = compiler;
+        this.maxWeight = maxWeight;
+        this.store = store;
+        this.keyPrefix = IcssCompiler.VERSION + '\0' + IcssCompiler.CACHE_FORMAT + '\0' + compiler.getOptions().getCacheKey() + '\0';
+    }
+
+    /**
+     * Returns the cached result of compiling input, compiling it on a miss.
+     * @param input the ICSS source
+     * @return the result, without AST when it came from the cache
+     */
+    public CompilationResult compile(CharSequence input) {
+        var key = key(input);
+        var entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+            return entry.toResult();
+        }
+
+        if (store != null) {
+            entry = store.load(key);
+            if (entry != null) {
+                diskHits.increment();
+                remember(key, entry);
+                return entry.toResult();
+            }
+        }
+
+        misses.increment();
+        var result = compiler.compile(input);
+        entry = CachedEntry.of(result);
+        remember(key, entry);
+        if (store != null) {
+            try {
+                store.store(key, entry);
+            } catch (IOException e) {
+                //The result is still valid, the input is compiled again by the next cache that misses it
+                storeFailures.increment();
+            }
+        }
+        return result;
+    }
+
+    public CacheStatistics getStatistics() {
+        synchronized (entries) {
+            return new CacheStatistics(hits.sum(), diskHits.sum(), misses.sum(), evictions.sum(), storeFailures.sum(),
+                    entries.size(), weight);
+        }
+    }
+
+    /**
+     * @param input the ICSS source
+     * @return the key of input for the compiler version and options of this cache
+     */
+    HashCode key(CharSequence input) {
+        return HASH.newHasher()
+                .putUnencodedChars(keyPrefix)
+                .putUnencodedChars(input)
+                .hash();
+    }
+
+    private CachedEntry lookup(HashCode key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void remember(HashCode key, CachedEntry entry) {
+        var entryWeight = entry.weight();
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            var previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += entryWeight;
+            var iterator = entries.values().iterator();
+            while (weight > maxWeight) {
+                weight -= iterator.next().weight();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package nl.han.ica.icss.cache;
+
+import com.google.common.hash.HashCode;
+import nl.han.ica.icss.compact.CompactAST;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Persistent cache entries and parsed ASTs, one file per key in a directory.
+ * Entries are written to a temporary file and moved into place atomically, and read through a memory mapping,
+ * so several JVMs on the same machine can share a directory without locking:
+ * a reader sees either no entry or a complete one.
+ *
+ * The store is not bounded: files are never removed, so the directory grows with every distinct input,
+ * compiler version and set of options. Keys include the compiler and cache format versions, so entries of an
+ * older compiler are never read again. The directory can be deleted at any time when no compile is running.
+ */
+public class DiskStore {
+    private static final String EXTENSION = ".entry";
+    private static final String AST_EXTENSION = ".ast";
+
+    private final Path directory;
+
+    /**
+     * @param directory directory of the store, created if it does not exist
+     * @throws IOException when the directory cannot be created
+     */
+    public DiskStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param key key of the entry
+     * @return the stored entry, or null if there is none or it cannot be read
+     */
+    CachedEntry load(HashCode key) {
+        var buffer = map(key + EXTENSION);
+        return buffer == null ? null : CachedEntry.readFrom(buffer);
+    }
+
+    /**
+     * @param key key of the AST
+     * @return the stored AST, or null if there is none or it cannot be read
+     */
+    CompactAST loadAST(HashCode key) {
+        var buffer = map(key + AST_EXTENSION);
+        return buffer == null ? null : CompactAST.readFrom(buffer);
+    }
+
+    private ByteBuffer map(String name) {
+        try (var channel = FileChannel.open(directory.resolve(name), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            //An unreadable file is a miss, the next store replaces it
+            return null;
+        }
+    }
+
+    /**
+     * Stores the entry, replacing an entry with the same key.
+     * @param key key of the entry
+     * @param entry the entry
+     * @throws IOException when the entry cannot be written
+     */
+    void store(HashCode key, CachedEntry entry) throws IOException {
+        write(key, EXTENSION, entry::writeTo);
+    }
+
+    /**
+     * Stores the binary form of a parsed AST, replacing an AST with the same key.
+     * @param key key of the AST
+     * @param ast the AST
+     * @throws IOException when the AST cannot be written
+     */
+    void storeAST(HashCode key, CompactAST ast) throws IOException {
+        write(key, AST_EXTENSION, ast::writeTo);
+    }
+
+    private void write(HashCode key, String extension, Writer writer) throws IOException {
+        var temp = Files.createTempFile(directory, key.toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writer.writeTo(out);
+            }
+            try {
+                Files.move(temp, directory.resolve(key + extension), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, directory.resolve(key + extension), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private interface Writer {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+}
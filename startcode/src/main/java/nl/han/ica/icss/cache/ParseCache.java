@@ -0,0 +1,98 @@
+package nl.han.ica.icss.cache;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.compact.CompactAST;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists the parsed AST of every input in the binary form of a CompactAST, keyed on a hash of the input.
+ * Shared stylesheets that do not change are then loaded into a Pipeline without lexing and parsing,
+ * unlike the CompileCache the stages after parsing still run on the loaded AST.
+ * Inputs with syntax errors are not stored, they are parsed every time to report the errors.
+ * An AST that cannot be stored is still used, the failure is only counted.
+ * A ParseCache is thread-safe.
+ */
+public class ParseCache {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final DiskStore store;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder storeFailures = new LongAdder();
+
+    /**
+     * @param store persistent store of the ASTs, may be shared with a CompileCache and other JVMs
+     */
+    public ParseCache(DiskStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Loads the stored AST of input into the pipeline, or parses input with the pipeline and stores its AST.
+     * @param pipeline the pipeline to check, transform and generate the AST with afterwards
+     * @param input the ICSS source
+     * @return true if the AST was loaded, false if input was parsed
+     */
+    public boolean parse(Pipeline pipeline, String input) {
+        var key = key(input);
+        var stored = store.loadAST(key);
+        if (stored != null) {
+            hits.increment();
+            pipeline.loadAST(stored.toAST());
+            return true;
+        }
+
+        misses.increment();
+        pipeline.parseString(input);
+        if (pipeline.isParsed()) {
+            try {
+                store.storeAST(key, CompactAST.of(pipeline.getAST()));
+            } catch (IOException e) {
+                //The parsed AST is still valid, the input is parsed again on the next miss
+                storeFailures.increment();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of inputs loaded from the store
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of inputs parsed
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of parsed ASTs that could not be written to the store
+     */
+    public long getStoreFailures() {
+        return storeFailures.sum();
+    }
+
+    /**
+     * @param input the ICSS source
+     * @return the key of input, the compiler and cache versions are part of it because the AST may change between versions
+     */
+    HashCode key(CharSequence input) {
+        return HASH.newHasher()
+                .putUnencodedChars(IcssCompiler.VERSION)
+                .putChar('\0')
+                .putInt(IcssCompiler.CACHE_FORMAT)
+                .putUnencodedChars(input)
+                .hash();
+    }
+}
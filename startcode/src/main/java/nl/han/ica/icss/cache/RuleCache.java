@@ -0,0 +1,254 @@
+package nl.han.ica.icss.cache;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import nl.han.ica.datastructures.MyHanScope;
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Remembers the checked, evaluated and generated result of every Stylerule across compiles of an edited stylesheet.
+ * A rule is looked up by a structural hash of its AST plus the types and values of the variables it references,
+ * so only new or changed rules, and rules whose variables changed, are checked, evaluated and generated again.
+ *
+ * The compiled AST is checked but never transformed, so it can be kept by an IncrementalParser between compiles.
+ * Rules are hashed once per node, the nodes must therefore not be changed after they were compiled.
+ * A RuleCache is not thread-safe.
+ */
+public class RuleCache {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final LinkedHashMap<HashCode, RuleEntry> rules;
+    //Shape of every compiled rule by identity, rules kept by an incremental parse are not hashed again
+    private final Map<Stylerule, RuleShape> shapes = new MapMaker().weakKeys().makeMap();
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxRules maximum number of remembered rules, the least recently used are forgotten first
+     */
+    public RuleCache(int maxRules) {
+        this.rules = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<HashCode, RuleEntry> eldest) {
+                return size() > maxRules;
+            }
+        };
+    }
+
+    /**
+     * @return number of rules reused since this cache was created
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of rules compiled since this cache was created
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Checks, transforms and generates a parsed AST, reusing the results of unchanged rules.
+     * The diagnostics and css are the same as those of a full compile.
+     * The errors of reused rules are only reported in the diagnostics, their nodes are not checked again,
+     * so a rule equal to a cached one but parsed into new nodes carries no errors.
+     * @param ast a parsed AST without syntax errors, it is not transformed
+     * @return the result of this compile, with the given checked AST, so it is never transformed
+     */
+    public CompilationResult compile(AST ast) {
+        var checker = new Checker();
+        var evaluator = new Evaluator();
+        var diagnostics = new ArrayList<String>();
+        var fragments = new ArrayList<String>();
+
+        var globalTypes = new MyHanScope<ExpressionType>();
+        var globalValues = new MyHanScope<Literal>();
+        //Null for a global variable that could not be evaluated
+        var values = new HashMap<String, Literal>();
+
+        //Fingerprint of all global variables, while it is unchanged a rule can reuse its key of the previous compile
+        var globals = HASH.newHasher();
+        HashCode globalsFingerprint = null;
+        for (var child : ast.root.body) {
+            if (child instanceof VariableAssignment) {
+                var assignment = (VariableAssignment) child;
+                clearErrors(assignment);
+                checker.checkVariableAssignment(assignment, globalTypes);
+                Literal value = null;
+                if (!collectErrors(assignment, diagnostics) && canEvaluate(references(assignment), values)) {
+                    value = evaluator.transformExpression(assignment.expression, globalValues);
+                    globalValues.declare(assignment.name.name, value);
+                }
+                values.put(assignment.name.name, value);
+                hashVariable(globals, assignment.name.name, globalTypes.lookup(assignment.name.name), value);
+            }
+
+            if (child instanceof Stylerule) {
+                if (globalsFingerprint == null) {
+                    globalsFingerprint = globals.hash();
+                }
+                var stylerule = (Stylerule) child;
+                var shape = shapes.computeIfAbsent(stylerule, RuleCache::shapeOf);
+                var key = shape.key(globalsFingerprint, globalTypes, values);
+                var entry = rules.get(key);
+                if (entry == null) {
+                    misses++;
+                    entry = compileRule(stylerule, shape, checker, evaluator, globalTypes, globalValues, values);
+                    rules.put(key, entry);
+                } else {
+                    hits++;
+                }
+                diagnostics.addAll(entry.errors);
+                fragments.add(entry.css);
+            }
+        }
+
+        var succeeded = diagnostics.isEmpty();
+        return new CompilationResult(ast, diagnostics, succeeded ? String.join("\n\n", fragments) : null,
+                true, succeeded, false);
+    }
+
+    private RuleEntry compileRule(Stylerule stylerule, RuleShape shape, Checker checker, Evaluator evaluator,
+                                  MyHanScope<ExpressionType> globalTypes, MyHanScope<Literal> globalValues,
+                                  Map<String, Literal> values) {
+        clearErrors(stylerule);
+        checker.checkStylerule(stylerule, globalTypes);
+        var errors = new ArrayList<String>();
+        if (collectErrors(stylerule, errors) || !canEvaluate(shape.references, values)) {
+            return new RuleEntry(errors, null);
+        }
+
+        var css = new StringBuilder();
+        try {
+            new Generator().generateStyleRule(evaluator.transformStylerule(stylerule, globalValues), css);
+        } catch (IOException e) {
+            //StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return new RuleEntry(errors, css.toString());
+    }
+
+    /**
+     * A rule or assignment can only be evaluated when none of the global variables it uses failed.
+     */
+    private static boolean canEvaluate(Collection<String> references, Map<String, Literal> values) {
+        for (var name : references) {
+            if (values.containsKey(name) && values.get(name) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void hashVariable(Hasher hasher, String name, ExpressionType type, Literal value) {
+        hasher.putUnencodedChars(name)
+                .putInt(type == null ? -1 : type.ordinal())
+                .putUnencodedChars(value == null ? "" : value.getNodeLabel());
+    }
+
+    private static RuleShape shapeOf(Stylerule stylerule) {
+        var hasher = HASH.newHasher();
+        var references = new LinkedHashSet<String>();
+        hashNode(stylerule, hasher, references);
+        return new RuleShape(hasher.hash(), List.copyOf(references));
+    }
+
+    private static void hashNode(ASTNode node, Hasher hasher, Set<String> references) {
+        //Labels contain the names and values of the nodes, the child count makes the preorder unambiguous
+        var count = node.getChildCount();
+        hasher.putUnencodedChars(node.getNodeLabel()).putInt(count);
+        if (node instanceof VariableReference) {
+            references.add(((VariableReference) node).name);
+        }
+        for (int i = 0; i < count; i++) {
+            hashNode(node.getChild(i), hasher, references);
+        }
+    }
+
+    private static Set<String> references(ASTNode node) {
+        var references = new LinkedHashSet<String>();
+        hashNode(node, HASH.newHasher(), references);
+        return references;
+    }
+
+    /**
+     * Adds the errors of node and its descendants in AST order.
+     * @return true if any error was found
+     */
+    private static boolean collectErrors(ASTNode node, List<String> errors) {
+        var found = node.hasError();
+        if (found) {
+            errors.add(node.getError().toString());
+        }
+        var count = node.getChildCount();
+        for (int i = 0; i < count; i++) {
+            found |= collectErrors(node.getChild(i), errors);
+        }
+        return found;
+    }
+
+    private static void clearErrors(ASTNode node) {
+        node.clearError();
+        node.forEachChild(RuleCache::clearErrors);
+    }
+
+    /**
+     * The structural hash of a rule and the names of the variables it references.
+     */
+    private static final class RuleShape {
+        private final HashCode structure;
+        private final List<String> references;
+        private HashCode lastGlobals;
+        private HashCode lastKey;
+
+        private RuleShape(HashCode structure, List<String> references) {
+            this.structure = structure;
+            this.references = references;
+        }
+
+        /**
+         * @param globals fingerprint of all global variables
+         * @return key of this rule with the current types and values of the variables it references
+         */
+        private HashCode key(HashCode globals, MyHanScope<ExpressionType> globalTypes, Map<String, Literal> values) {
+            if (globals.equals(lastGlobals)) {
+                return lastKey;
+            }
+            var hasher = HASH.newHasher().putBytes(structure.asBytes());
+            for (var name : references) {
+                hashVariable(hasher, name, globalTypes.lookup(name), values.get(name));
+            }
+            lastGlobals = globals;
+            lastKey = hasher.hash();
+            return lastKey;
+        }
+    }
+
+    /**
+     * The errors of a checked rule, and its css when it had none.
+     */
+    private static final class RuleEntry {
+        private final List<String> errors;
+        private final String css;
+
+        private RuleEntry(List<String> errors, String css) {
+            this.errors = errors;
+            this.css = css;
+        }
+    }
+}
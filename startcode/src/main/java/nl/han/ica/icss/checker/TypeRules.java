@@ -0,0 +1,172 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+/**
+ * The type rules of ICSS, shared by every pass that checks an AST,
+ * so all of them report exactly the same errors on the same nodes.
+ * The rules are also available on plain types and names, for passes over other representations of the AST.
+ */
+public final class TypeRules {
+
+    private TypeRules() {
+    }
+
+    /**
+     * @param literal a Literal ASTNode
+     * @return the ExpressionType of the literal, or UNDEFINED for an unknown literal
+     */
+    public static ExpressionType getLiteralType(Literal literal) {
+        if (literal instanceof PercentageLiteral) {
+            return ExpressionType.PERCENTAGE;
+        } else if (literal instanceof PixelLiteral) {
+            return ExpressionType.PIXEL;
+        } else if (literal instanceof ColorLiteral) {
+            return ExpressionType.COLOR;
+        } else if (literal instanceof ScalarLiteral) {
+            return ExpressionType.SCALAR;
+        } else if (literal instanceof BoolLiteral) {
+            return ExpressionType.BOOL;
+        }
+        return ExpressionType.UNDEFINED;
+    }
+
+    /**
+     * Determines the type of an operation from the types of its operands,
+     * implements Check (CH02, CH03)
+     * @param operation the current Operation ASTNode, receives the error if any
+     * @param left type of the left operand
+     * @param right type of the right operand
+     * @return the ExpressionType of the operation, or UNDEFINED if the operation results in an error.
+     */
+    public static ExpressionType getOperationType(Operation operation, ExpressionType left, ExpressionType right) {
+        var multiply = operation instanceof MultiplyOperation;
+        var error = operationError(multiply, left, right);
+        if (error != null) {
+            operation.setError(error);
+            return ExpressionType.UNDEFINED;
+        }
+        return getOperationType(multiply, left, right);
+    }
+
+    /**
+     * @param multiply true for a multiply operation, false for an add or subtract operation
+     * @param left type of the left operand
+     * @param right type of the right operand
+     * @return the ExpressionType of the operation, or UNDEFINED if the operation results in an error.
+     */
+    public static ExpressionType getOperationType(boolean multiply, ExpressionType left, ExpressionType right) {
+        if (operationError(multiply, left, right) != null) {
+            return ExpressionType.UNDEFINED;
+        }
+        if (multiply && left == ExpressionType.SCALAR) {
+            return right;
+        }
+        return left;
+    }
+
+    /**
+     * @param multiply true for a multiply operation, false for an add or subtract operation
+     * @param left type of the left operand
+     * @param right type of the right operand
+     * @return the error of the operation, or null if it has none
+     */
+    public static String operationError(boolean multiply, ExpressionType left, ExpressionType right) {
+        if (left == ExpressionType.COLOR || right == ExpressionType.COLOR) {
+            return "Illegal use of ColorLiteral in math operation";
+        }
+        if (multiply) {
+            if (left != ExpressionType.SCALAR && right != ExpressionType.SCALAR) {
+                return "Illegal use of only non ScalarLiterals in multiply operation";
+            }
+            return null;
+        }
+        if (left != right) {
+            return "Illegal use of different Literals in add or subtract operations";
+        }
+        return null;
+    }
+
+    /**
+     * Checks the type of a declaration against its property,
+     * implements Check (CH04) and allowed Property usage
+     * @param declaration the current Declaration ASTNode, receives the error if any
+     * @param expressionType type of the expression of the declaration
+     */
+    public static void checkDeclaration(Declaration declaration, ExpressionType expressionType) {
+        var error = declarationError(declaration.property.name, expressionType);
+        if (error != null) {
+            declaration.setError(error);
+        }
+    }
+
+    /**
+     * @param propertyName the property of a declaration
+     * @param expressionType type of the expression of the declaration
+     * @return the error of the declaration, or null if it has none
+     */
+    public static String declarationError(String propertyName, ExpressionType expressionType) {
+        switch (propertyName) {
+            case "color":
+            case "background-color":
+                if (expressionType != ExpressionType.COLOR) {
+                    return "Illegal use of literal for property: "+propertyName+", it must be a ColorLiteral.";
+                }
+                return null;
+            case "width":
+            case "height":
+                if (expressionType != ExpressionType.PERCENTAGE && expressionType != ExpressionType.PIXEL) {
+                    return "Illegal use of literal for property: "+propertyName+", a size property should use Percentage or PixelLiteral.";
+                }
+                return null;
+            default:
+                return "Illegal property used: "+propertyName+", Only (color, background-color, width, height) are allowed.";
+        }
+    }
+
+    /**
+     * Checks the variable used as condition of an IfClause,
+     * implements Check (CH05)
+     * @param ifClause the current IfClause ASTNode, receives the error if any
+     * @param condition the variable used as condition
+     * @param expressionType type of the variable
+     */
+    public static void checkCondition(IfClause ifClause, VariableReference condition, ExpressionType expressionType) {
+        var error = conditionError(condition.name, expressionType);
+        if (error != null) {
+            ifClause.setError(error);
+        }
+    }
+
+    /**
+     * @param name the variable used as condition
+     * @param expressionType type of the variable
+     * @return the error of the IfClause, or null if it has none
+     */
+    public static String conditionError(String name, ExpressionType expressionType) {
+        if (expressionType != ExpressionType.BOOL) {
+            return "Illegal IfClause condition: "+name+" is not a Boolean";
+        }
+        return null;
+    }
+
+    /**
+     * Reports the use of a variable that is not declared in scope,
+     * implements Check (CH01, CH06)
+     * @param reference the current VariableReference ASTNode, receives the error
+     */
+    public static void undefinedVariable(VariableReference reference) {
+        reference.setError(undefinedVariableError(reference.name));
+    }
+
+    /**
+     * @param name name of the undefined variable
+     * @return the error of a reference to the variable
+     */
+    public static String undefinedVariableError(String name) {
+        return "Illegal use of variable: "+name+", it is undefined or cant be used in current scope";
+    }
+}
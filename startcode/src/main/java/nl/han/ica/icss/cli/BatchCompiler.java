@@ -0,0 +1,344 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.StreamingCompiler;
+import nl.han.ica.icss.cache.CompileCache;
+import nl.han.ica.icss.cache.DiskStore;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless batch mode: compiles every .icss file in the given files and directories
+ * on a work-stealing pool and writes a .css file next to each input.
+ * Every task uses its own Pipeline, because a Pipeline keeps state per compile.
+ */
+public class BatchCompiler {
+
+    static final String INPUT_EXTENSION = ".icss";
+    private static final String OUTPUT_EXTENSION = ".css";
+
+    //Size of the in-memory part of the compile cache
+    private static final long CACHE_MEMORY = 64L * 1024 * 1024;
+    //Default quiet time after a burst of file events in watch mode
+    private static final long DEBOUNCE_MILLIS = 100;
+
+    private final ForkJoinPool pool;
+    private final CompileCache cache;
+    private final boolean streaming;
+
+    public BatchCompiler(int parallelism) {
+        this(parallelism, null);
+    }
+
+    public BatchCompiler(int parallelism, CompileCache cache) {
+        this(parallelism, cache, false);
+    }
+
+    /**
+     * @param parallelism number of files compiled at the same time
+     * @param cache cache that skips inputs compiled before, or null to compile every input
+     * @param streaming true to compile every file in constant memory with the StreamingCompiler, the cache is not used then
+     */
+    public BatchCompiler(int parallelism, CompileCache cache, boolean streaming) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = cache;
+        this.streaming = streaming;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var parallelism = Runtime.getRuntime().availableProcessors();
+        var roots = new ArrayList<Path>();
+        CompileCache cache = null;
+        var streaming = false;
+        var watch = false;
+        var debounceMillis = DEBOUNCE_MILLIS;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cache = new CompileCache(new IcssCompiler(), CACHE_MEMORY, new DiskStore(Paths.get(args[++i])));
+            } else if (args[i].equals("--stream")) {
+                streaming = true;
+            } else if (args[i].equals("--watch")) {
+                watch = true;
+            } else if (args[i].equals("--debounce") && i + 1 < args.length) {
+                debounceMillis = Long.parseLong(args[++i]);
+            } else {
+                roots.add(Paths.get(args[i]));
+            }
+        }
+        if (roots.isEmpty()) {
+            System.err.println("Usage: BatchCompiler [--threads n] [--cache directory | --stream] [--watch [--debounce ms]] <file or directory>...");
+            System.exit(2);
+        }
+
+        var compiler = new BatchCompiler(parallelism, cache, streaming);
+        BatchSummary summary;
+        try {
+            summary = compiler.compile(findInputs(roots));
+        } finally {
+            compiler.shutdown();
+        }
+
+        for (var result : summary.getFailures()) {
+            for (var error : result.errors) {
+                System.err.println(result.input + ": " + error);
+            }
+        }
+        System.out.println(summary);
+        if (cache != null) {
+            System.out.println(cache.getStatistics());
+        }
+        if (watch) {
+            watch(roots, debounceMillis, cache, streaming);
+            return;
+        }
+        System.exit(summary.getFailures().isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Keeps recompiling changed files after the first build, until the process is stopped.
+     */
+    private static void watch(List<Path> roots, long debounceMillis, CompileCache cache, boolean streaming) throws IOException {
+        System.out.println("Watching " + roots + " for changes");
+        try (var watcher = new WatchCompiler(roots, debounceMillis, cache, streaming)) {
+            watcher.run(rebuild -> {
+                for (var result : rebuild.getResults()) {
+                    for (var error : result.errors) {
+                        System.err.println(result.input + ": " + error);
+                    }
+                }
+                System.out.println(rebuild);
+            });
+        }
+    }
+
+    /**
+     * Collects all .icss files in the given files and directories, in a stable order.
+     * @param roots files and directories to search
+     * @return list of .icss files
+     * @throws IOException when a directory cannot be read
+     */
+    public static List<Path> findInputs(List<Path> roots) throws IOException {
+        var inputs = new ArrayList<Path>();
+        for (var root : roots) {
+            try (Stream<Path> files = Files.walk(root)) {
+                inputs.addAll(files
+                        .filter(Files::isRegularFile)
+                        .filter(file -> file.getFileName().toString().endsWith(INPUT_EXTENSION))
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Compiles all inputs in parallel, one task (and Pipeline) per file.
+     * @param inputs the .icss files to compile
+     * @return aggregate summary of the run
+     */
+    public BatchSummary compile(List<Path> inputs) {
+        var start = System.nanoTime();
+        var tasks = new ArrayList<ForkJoinTask<FileResult>>(inputs.size());
+        for (var input : inputs) {
+            tasks.add(pool.submit(() -> streaming ? compileFileStreaming(input) : compileFile(input, cache)));
+        }
+        var results = new ArrayList<FileResult>(tasks.size());
+        for (var task : tasks) {
+            results.add(task.join());
+        }
+        return new BatchSummary(results, System.nanoTime() - start);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Compiles a single file and writes the output next to it.
+     * Output is only written when parsing and checking succeeded.
+     * @param input the .icss file
+     * @return the result of compiling input
+     */
+    static FileResult compileFile(Path input) {
+        return compileFile(input, null);
+    }
+
+    /**
+     * Compiles a single file through the cache and writes the output next to it.
+     * @param input the .icss file
+     * @param cache the cache to compile with, or null to compile without cache
+     * @return the result of compiling input
+     */
+    static FileResult compileFile(Path input, CompileCache cache) {
+        if (cache != null) {
+            return compileFileCached(input, cache);
+        }
+        return compileWith(input, pipeline -> pipeline.parseFile(input));
+    }
+
+    /**
+     * Compiles a single file like compileFile, but reads it into memory first instead of memory-mapping it.
+     * A mapped file that is truncated during the compile faults with an InternalError,
+     * so files that may change at any time, like in watch mode, are compiled from a copy.
+     * @param input the .icss file
+     * @return the result of compiling input
+     */
+    static FileResult compileFileInMemory(Path input) {
+        return compileWith(input, pipeline -> pipeline.parseString(new String(Files.readAllBytes(input), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parses input with the given step, then checks, transforms and writes the output next to it.
+     * Output is only written when parsing and checking succeeded.
+     */
+    private static FileResult compileWith(Path input, ParseStep parseStep) {
+        var errors = new ArrayList<String>();
+        long bytes = 0;
+        try {
+            bytes = Files.size(input);
+            var pipeline = new Pipeline();
+            pipeline.setBuildParseTree(false);
+            parseStep.parse(pipeline);
+            if (pipeline.isParsed() && pipeline.check()) {
+                pipeline.transform();
+                writeOutput(input, out -> {
+                    pipeline.generate(out);
+                    return true;
+                });
+            }
+            errors.addAll(pipeline.getErrors());
+        } catch (IOException | RuntimeException e) {
+            errors.add(e.toString());
+        }
+        return new FileResult(input, bytes, errors);
+    }
+
+    private static FileResult compileFileCached(Path input, CompileCache cache) {
+        var errors = new ArrayList<String>();
+        long bytes = 0;
+        try {
+            bytes = Files.size(input);
+            //The cache key covers the whole text, so it has to be read
+            var result = cache.compile(new String(Files.readAllBytes(input), StandardCharsets.UTF_8));
+            if (result.isSucceeded()) {
+                writeOutput(input, out -> {
+                    out.write(result.getCss().getBytes(StandardCharsets.UTF_8));
+                    return true;
+                });
+            }
+            errors.addAll(result.getDiagnostics());
+        } catch (IOException | RuntimeException e) {
+            errors.add(e.toString());
+        }
+        return new FileResult(input, bytes, errors);
+    }
+
+    /**
+     * Compiles a single file with the StreamingCompiler. The output is written to a temporary file next to input,
+     * which replaces the output only when the whole file compiled.
+     * @param input the .icss file
+     * @return the result of compiling input
+     */
+    static FileResult compileFileStreaming(Path input) {
+        var errors = new ArrayList<String>();
+        long bytes = 0;
+        try {
+            bytes = Files.size(input);
+            try (var in = Files.newInputStream(input)) {
+                writeOutput(input, out -> {
+                    errors.addAll(new StreamingCompiler().compile(in, out));
+                    return errors.isEmpty();
+                });
+            }
+        } catch (IOException | RuntimeException e) {
+            errors.add(e.toString());
+        }
+        return new FileResult(input, bytes, errors);
+    }
+
+    /**
+     * Writes the css of input to a temporary file next to the output and moves it into place atomically,
+     * so a reader of the output, like a server watching it, never sees a partly written file.
+     * @param input the .icss file
+     * @param writer writes the css to the temporary file
+     * @throws IOException when the output cannot be written
+     */
+    static void writeOutput(Path input, OutputWriter writer) throws IOException {
+        var output = outputPath(input);
+        var partial = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            boolean complete;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                complete = writer.write(out);
+            }
+            if (complete) {
+                try {
+                    Files.move(partial, output, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    static Path outputPath(Path input) {
+        var name = input.getFileName().toString();
+        var base = name.substring(0, name.length() - INPUT_EXTENSION.length());
+        return input.resolveSibling(base + OUTPUT_EXTENSION);
+    }
+
+    /**
+     * Reads the input of one file into a Pipeline.
+     */
+    private interface ParseStep {
+        void parse(Pipeline pipeline) throws IOException;
+    }
+
+    /**
+     * Writes the css, or stops when the input turns out to have errors.
+     */
+    interface OutputWriter {
+        /**
+         * @return true if the complete css was written, false to keep the previous output
+         */
+        boolean write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Outcome of compiling one file.
+     */
+    public static class FileResult {
+        public final Path input;
+        public final long bytes;
+        public final List<String> errors;
+
+        FileResult(Path input, long bytes, List<String> errors) {
+            this.input = input;
+            this.bytes = bytes;
+            this.errors = errors;
+        }
+
+        public boolean isSucceeded() {
+            return errors.isEmpty();
+        }
+    }
+}
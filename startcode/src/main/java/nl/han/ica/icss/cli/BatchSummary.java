@@ -0,0 +1,46 @@
+package nl.han.ica.icss.cli;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregated throughput and error counts of a batch run.
+ */
+public class BatchSummary {
+    private final List<BatchCompiler.FileResult> results;
+    private final long elapsedNanos;
+
+    public BatchSummary(List<BatchCompiler.FileResult> results, long elapsedNanos) {
+        this.results = results;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<BatchCompiler.FileResult> getResults() {
+        return results;
+    }
+
+    public List<BatchCompiler.FileResult> getFailures() {
+        return results.stream().filter(result -> !result.isSucceeded()).collect(Collectors.toList());
+    }
+
+    public long getTotalBytes() {
+        return results.stream().mapToLong(result -> result.bytes).sum();
+    }
+
+    public int getErrorCount() {
+        return results.stream().mapToInt(result -> result.errors.size()).sum();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        var seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        var failed = getFailures().size();
+        return String.format("Compiled %d files (%d succeeded, %d failed, %d errors) in %.3f s: %.1f files/s, %.2f MB/s",
+                results.size(), results.size() - failed, failed, getErrorCount(),
+                seconds, results.size() / seconds, getTotalBytes() / seconds / (1024 * 1024));
+    }
+}
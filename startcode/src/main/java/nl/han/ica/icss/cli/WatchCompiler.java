@@ -0,0 +1,264 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.cache.CompileCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Long-running watch mode: recompiles the .icss files in the watched directories, and the watched files, when they change.
+ * A file is watched through its directory, events for the other files in that directory are ignored.
+ * Events are collected until no new event arrived for the debounce window, so an editor that saves a file
+ * in several writes, or a checkout that touches many files, causes a single rebuild of every changed file.
+ * Rebuilds run one after another on the watching thread in the same JVM, so the JIT-compiled parser,
+ * checker and generator code is reused. Outputs are replaced atomically, like in batch mode,
+ * and the output of a deleted input is deleted.
+ */
+public class WatchCompiler implements Closeable {
+    //Directories watched with their subdirectories
+    private final List<Path> directoryRoots = new ArrayList<>();
+    //Files watched on their own, as absolute paths
+    private final Set<Path> files = new LinkedHashSet<>();
+    private final long debounceMillis;
+    private final CompileCache cache;
+    private final boolean streaming;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    /**
+     * @param roots directories to watch, including their subdirectories, and files to watch on their own
+     * @param debounceMillis quiet time after the last event before a rebuild starts
+     * @throws IOException when a directory cannot be watched
+     */
+    public WatchCompiler(List<Path> roots, long debounceMillis) throws IOException {
+        this(roots, debounceMillis, null, false);
+    }
+
+    /**
+     * @param roots directories to watch, including their subdirectories, and files to watch on their own
+     * @param debounceMillis quiet time after the last event before a rebuild starts
+     * @param cache cache that skips inputs compiled before, or null to compile every input
+     * @param streaming true to compile with the StreamingCompiler, like the BatchCompiler with the same settings
+     * @throws IOException when a directory cannot be watched
+     */
+    public WatchCompiler(List<Path> roots, long debounceMillis, CompileCache cache, boolean streaming) throws IOException {
+        this.debounceMillis = debounceMillis;
+        this.cache = cache;
+        this.streaming = streaming;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        try {
+            for (var root : roots) {
+                if (Files.isDirectory(root)) {
+                    directoryRoots.add(root);
+                    registerAll(root);
+                } else {
+                    var file = absolute(root);
+                    files.add(file);
+                    register(file.getParent());
+                }
+            }
+        } catch (IOException e) {
+            watcher.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Watches until close is called from another thread, reporting every rebuild to the listener.
+     * @param listener receives every rebuild, on the watching thread
+     * @throws IOException when a new directory cannot be watched
+     */
+    public void run(Consumer<Rebuild> listener) throws IOException {
+        try {
+            while (true) {
+                var changed = awaitChanges();
+                var start = System.nanoTime();
+                var results = rebuild(changed.files);
+                var end = System.nanoTime();
+                //Only deleted files changed, their outputs are deleted as well
+                if (results.isEmpty()) continue;
+                listener.accept(new Rebuild(results, end - start, end - changed.firstEventNanos));
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            //Stopped by close or by interrupting the watching thread
+        }
+    }
+
+    /**
+     * Compiles the given files with the cache or streaming setting of this watcher,
+     * the output of a file that no longer exists is deleted.
+     * Files are never memory-mapped, because an editor can truncate them at any moment.
+     * @param files the changed .icss files
+     * @return the result of every compiled file
+     */
+    public List<BatchCompiler.FileResult> rebuild(Collection<Path> files) {
+        var results = new ArrayList<BatchCompiler.FileResult>(files.size());
+        for (var file : files) {
+            if (Files.isRegularFile(file)) {
+                results.add(compile(file));
+            } else {
+                deleteOutput(file);
+            }
+        }
+        return results;
+    }
+
+    private BatchCompiler.FileResult compile(Path file) {
+        if (streaming) {
+            return BatchCompiler.compileFileStreaming(file);
+        }
+        if (cache != null) {
+            //A cached compile reads the whole file to hash it
+            return BatchCompiler.compileFile(file, cache);
+        }
+        return BatchCompiler.compileFileInMemory(file);
+    }
+
+    private static void deleteOutput(Path file) {
+        try {
+            Files.deleteIfExists(BatchCompiler.outputPath(file));
+        } catch (IOException e) {
+            //The input is gone either way, an output that cannot be deleted is left behind
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+    /**
+     * Blocks until a burst of events has passed and at least one .icss file changed.
+     */
+    private Changes awaitChanges() throws InterruptedException, IOException {
+        var changes = new Changes();
+        while (changes.files.isEmpty()) {
+            var key = watcher.take();
+            changes.firstEventNanos = System.nanoTime();
+            while (key != null) {
+                collect(key, changes.files);
+                key = watcher.poll(debounceMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return changes;
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) throws IOException {
+        var directory = directories.get(key);
+        for (var event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                //Events were lost, every input may have changed
+                changed.addAll(BatchCompiler.findInputs(directoryRoots));
+                changed.addAll(files);
+                continue;
+            }
+            var path = directory.resolve((Path) event.context());
+            if (!isWatched(path)) {
+                //Another file in the directory of a watched file
+                continue;
+            }
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                //Files in a new directory can be written before it is registered, so they are compiled as well
+                try {
+                    registerAll(path);
+                    changed.addAll(BatchCompiler.findInputs(List.of(path)));
+                } catch (NoSuchFileException e) {
+                    //Removed again before it could be watched
+                }
+            } else if (path.getFileName().toString().endsWith(BatchCompiler.INPUT_EXTENSION)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    /**
+     * @return true if path is a watched file or lies in a watched directory
+     */
+    private boolean isWatched(Path path) {
+        var file = absolute(path);
+        if (files.contains(file)) {
+            return true;
+        }
+        for (var root : directoryRoots) {
+            if (file.startsWith(absolute(root))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path absolute(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private void registerAll(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (var directory : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+                register(directory);
+            }
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        directories.put(directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+    }
+
+    /**
+     * The files changed in one burst of events, in the order they first changed.
+     */
+    private static final class Changes {
+        private final Set<Path> files = new LinkedHashSet<>();
+        private long firstEventNanos;
+    }
+
+    /**
+     * Outcome of one rebuild.
+     */
+    public static final class Rebuild {
+        private final List<BatchCompiler.FileResult> results;
+        private final long compileNanos;
+        private final long latencyNanos;
+
+        Rebuild(List<BatchCompiler.FileResult> results, long compileNanos, long latencyNanos) {
+            this.results = results;
+            this.compileNanos = compileNanos;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public List<BatchCompiler.FileResult> getResults() {
+            return results;
+        }
+
+        /**
+         * @return time spent compiling and writing the changed files
+         */
+        public long getCompileNanos() {
+            return compileNanos;
+        }
+
+        /**
+         * @return time from the first event of the burst until the outputs were written, including the debounce window
+         */
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            var failed = results.stream().filter(result -> !result.isSucceeded()).count();
+            return String.format("Rebuilt %d files (%d failed) in %.1f ms, %.1f ms after the first change",
+                    results.size(), failed, compileNanos / 1_000_000.0, latencyNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package nl.han.ica.icss.compact;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An AST stored as a struct of arrays instead of one object per node, for stylesheets too large for the ASTNode classes.
+ * The nodes are numbered in preorder, node 0 is the Stylesheet. Every node has a kind, the size of its subtree
+ * and an int value, so the first child of node i is i + 1 and its next sibling is i + getSize(i).
+ *
+ * The value of a node depends on its kind:
+ * <ul>
+ *     <li>the number of a pixel, percentage or scalar literal, 1 or 0 for a bool literal;</li>
+ *     <li>the index in the name table of the color of a color literal, the name of a variable reference
+ *     or variable assignment, the property of a declaration and the selector of a style rule;</li>
+ *     <li>0 for the other kinds.</li>
+ * </ul>
+ * Selectors keep their prefix, a name starting with '#' is an id selector and one starting with '.' a class selector.
+ * The children of an if clause are its condition, its body and an optional else clause as the last child.
+ * Variable names, properties and selectors are not nodes of their own, so a declaration of a literal takes two nodes.
+ *
+ * A CompactAST is immutable and has no errors, the CompactChecker returns them separately.
+ *
+ * The binary form written by writeTo is a versioned header, the name table and then every node as its kind
+ * followed by its size and value as variable length integers, so a parsed stylesheet can be loaded
+ * without lexing and parsing it again.
+ */
+public final class CompactAST {
+    public static final byte STYLESHEET = 0;
+    public static final byte STYLERULE = 1;
+    public static final byte DECLARATION = 2;
+    public static final byte VARIABLE_ASSIGNMENT = 3;
+    public static final byte IF_CLAUSE = 4;
+    public static final byte ELSE_CLAUSE = 5;
+    public static final byte VARIABLE_REFERENCE = 6;
+    public static final byte ADD = 7;
+    public static final byte SUBTRACT = 8;
+    public static final byte MULTIPLY = 9;
+    public static final byte PIXEL = 10;
+    public static final byte PERCENTAGE = 11;
+    public static final byte SCALAR = 12;
+    public static final byte COLOR = 13;
+    public static final byte BOOL = 14;
+
+    private static final int MAGIC = 0x49435341;
+    private static final byte FORMAT = 1;
+
+    private final byte[] kinds;
+    private final int[] sizes;
+    private final int[] values;
+    private final String[] names;
+    private final int nodeCount;
+
+    private CompactAST(byte[] kinds, int[] sizes, int[] values, String[] names, int nodeCount) {
+        this.kinds = kinds;
+        this.sizes = sizes;
+        this.values = values;
+        this.names = names;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * @param ast a parsed AST, its errors are not copied
+     * @return the same tree as a CompactAST
+     * @throws IllegalArgumentException when a style rule has more than one selector or a node is not supported
+     */
+    public static CompactAST of(AST ast) {
+        var builder = new Builder();
+        for (var child : ast.root.body) {
+            builder.add(child);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a Builder of a CompactAST, to which the top-level nodes are added one at a time
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of nodes, including the Stylesheet
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param node index of a node
+     * @return the kind of the node, one of the constants of this class
+     */
+    public byte getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * @param node index of a node
+     * @return the number of nodes in the subtree of the node, including the node itself
+     */
+    public int getSize(int node) {
+        return sizes[node];
+    }
+
+    /**
+     * @param node index of a node
+     * @return the index after the last node of the subtree of the node, the next sibling if it has one
+     */
+    public int getEnd(int node) {
+        return node + sizes[node];
+    }
+
+    /**
+     * @param node index of a literal node
+     * @return the value of a pixel, percentage or scalar literal, 1 or 0 for a bool literal
+     */
+    public int getValue(int node) {
+        return values[node];
+    }
+
+    /**
+     * @param node index of a color literal, variable reference, variable assignment, declaration or style rule
+     * @return the color, variable name, property or selector of the node
+     */
+    public String getName(int node) {
+        return names[values[node]];
+    }
+
+    /**
+     * @param index an index in the name table, the value of a named node
+     * @return the name at the index
+     */
+    String getNameAt(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the number of distinct names, colors and selectors
+     */
+    public int getNameCount() {
+        return names.length;
+    }
+
+    /**
+     * @return the tree as ASTNode objects, using the shared literal instances
+     */
+    public AST toAST() {
+        var stylesheet = new Stylesheet();
+        for (int child = 1; child < nodeCount; child = getEnd(child)) {
+            stylesheet.addChild(toNode(child));
+        }
+        return new AST(stylesheet);
+    }
+
+    /**
+     * Writes the binary form of this CompactAST.
+     * @param out the destination, it is not closed
+     * @throws IOException when writing to out fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+        out.writeInt(names.length);
+        for (var name : names) {
+            var bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+        writeVarInt(out, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            out.writeByte(kinds[node]);
+            writeVarInt(out, sizes[node]);
+            //Zigzag encoding keeps small negative literals short
+            writeVarInt(out, (values[node] << 1) ^ (values[node] >> 31));
+        }
+    }
+
+    /**
+     * Reads a CompactAST written by writeTo.
+     * @param buffer the binary form, read from its position
+     * @return the CompactAST, or null if the buffer does not hold a complete and well-formed CompactAST of this format
+     */
+    public static CompactAST readFrom(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != FORMAT) {
+                return null;
+            }
+            var nameCount = buffer.getInt();
+            if (nameCount < 0 || nameCount > buffer.remaining()) {
+                return null;
+            }
+            var names = new String[nameCount];
+            for (int i = 0; i < nameCount; i++) {
+                var length = readVarInt(buffer);
+                if (length < 0 || length > buffer.remaining()) {
+                    return null;
+                }
+                var bytes = new byte[length];
+                buffer.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            var nodeCount = readVarInt(buffer);
+            //Every node takes at least three bytes
+            if (nodeCount < 1 || nodeCount > buffer.remaining() / 3) {
+                return null;
+            }
+            var kinds = new byte[nodeCount];
+            var sizes = new int[nodeCount];
+            var values = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                kinds[node] = buffer.get();
+                sizes[node] = readVarInt(buffer);
+                var value = readVarInt(buffer);
+                values[node] = (value >>> 1) ^ -(value & 1);
+            }
+            var ast = new CompactAST(kinds, sizes, values, names, nodeCount);
+            return ast.isWellFormed() ? ast : null;
+        } catch (BufferUnderflowException e) {
+            //Truncated file
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the stored kinds, sizes and names describe a tree that toAST can convert, so a damaged file cannot be used.
+     */
+    private boolean isWellFormed() {
+        if (kinds[0] != STYLESHEET || sizes[0] != nodeCount) {
+            return false;
+        }
+        //The nodes that contain the current node, with the number of children seen of each
+        var parents = new int[nodeCount];
+        var childCounts = new int[nodeCount];
+        var depth = 0;
+        for (int node = 1; node < nodeCount; node++) {
+            while (getEnd(parents[depth]) <= node) {
+                if (!hasValidChildCount(parents[depth], childCounts[depth])) return false;
+                depth--;
+            }
+            var parent = parents[depth];
+            //The size is checked against the nodes left before getEnd is used, a huge size would overflow it
+            if (kinds[node] <= STYLESHEET || kinds[node] > BOOL || sizes[node] < 1 || sizes[node] > nodeCount - node
+                    || getEnd(node) > getEnd(parent)
+                    || !isValidChild(kinds[parent], childCounts[depth]++, kinds[node])) {
+                return false;
+            }
+            //An else clause is the last child of its if clause
+            if (kinds[node] == ELSE_CLAUSE && getEnd(node) != getEnd(parent)) {
+                return false;
+            }
+            if (isNamed(kinds[node]) && (values[node] < 0 || values[node] >= names.length)) {
+                return false;
+            }
+            depth++;
+            parents[depth] = node;
+            childCounts[depth] = 0;
+        }
+        for (; depth >= 0; depth--) {
+            if (!hasValidChildCount(parents[depth], childCounts[depth])) return false;
+        }
+        return true;
+    }
+
+    private static boolean isValidChild(byte parent, int index, byte kind) {
+        switch (parent) {
+            case STYLESHEET:
+                return kind == VARIABLE_ASSIGNMENT || kind == STYLERULE;
+            case STYLERULE:
+            case ELSE_CLAUSE:
+                return isStatement(kind);
+            case IF_CLAUSE:
+                return index == 0 ? isExpression(kind) : isStatement(kind) || kind == ELSE_CLAUSE;
+            case DECLARATION:
+            case VARIABLE_ASSIGNMENT:
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+                return isExpression(kind);
+            default:
+                return false;
+        }
+    }
+
+    private boolean hasValidChildCount(int node, int count) {
+        switch (kinds[node]) {
+            case DECLARATION:
+            case VARIABLE_ASSIGNMENT:
+                return count == 1;
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+                return count == 2;
+            case IF_CLAUSE:
+                return count >= 1;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isStatement(byte kind) {
+        return kind == DECLARATION || kind == VARIABLE_ASSIGNMENT || kind == IF_CLAUSE;
+    }
+
+    private static boolean isExpression(byte kind) {
+        return kind >= VARIABLE_REFERENCE && kind <= BOOL;
+    }
+
+    private static boolean isNamed(byte kind) {
+        return kind == STYLERULE || kind == DECLARATION || kind == VARIABLE_ASSIGNMENT
+                || kind == VARIABLE_REFERENCE || kind == COLOR;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        var value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            var b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+
+    private ASTNode toNode(int node) {
+        switch (kinds[node]) {
+            case STYLERULE:
+                return new Stylerule(toSelector(getName(node)), toBody(node + 1, getEnd(node)));
+            case DECLARATION:
+                var declaration = new Declaration(getName(node));
+                declaration.expression = (Expression) toNode(node + 1);
+                return declaration;
+            case VARIABLE_ASSIGNMENT:
+                var assignment = new VariableAssignment();
+                assignment.name = new VariableReference(getName(node));
+                assignment.expression = (Expression) toNode(node + 1);
+                return assignment;
+            case IF_CLAUSE:
+                var condition = (Expression) toNode(node + 1);
+                var end = getEnd(node);
+                var last = lastChild(node);
+                if (kinds[last] == ELSE_CLAUSE) {
+                    return new IfClause(condition, toBody(getEnd(node + 1), last),
+                            new ElseClause(toBody(last + 1, end)));
+                }
+                return new IfClause(condition, toBody(getEnd(node + 1), end));
+            case VARIABLE_REFERENCE:
+                return new VariableReference(getName(node));
+            case ADD:
+                return toOperation(new AddOperation(), node);
+            case SUBTRACT:
+                return toOperation(new SubtractOperation(), node);
+            case MULTIPLY:
+                return toOperation(new MultiplyOperation(), node);
+            case PIXEL:
+                return PixelLiteral.of(values[node]);
+            case PERCENTAGE:
+                return PercentageLiteral.of(values[node]);
+            case SCALAR:
+                return ScalarLiteral.of(values[node]);
+            case COLOR:
+                return ColorLiteral.of(getName(node));
+            case BOOL:
+                return BoolLiteral.of(values[node] != 0);
+            default:
+                throw new IllegalStateException("Unexpected node kind " + kinds[node] + " at " + node);
+        }
+    }
+
+    private ArrayList<ASTNode> toBody(int start, int end) {
+        var body = new ArrayList<ASTNode>();
+        for (int child = start; child < end; child = getEnd(child)) {
+            body.add(toNode(child));
+        }
+        return body;
+    }
+
+    private Operation toOperation(Operation operation, int node) {
+        operation.lhs = (Expression) toNode(node + 1);
+        operation.rhs = (Expression) toNode(getEnd(node + 1));
+        return operation;
+    }
+
+    /**
+     * @param node index of a node with children
+     * @return the index of its last child
+     */
+    int lastChild(int node) {
+        var end = getEnd(node);
+        var child = node + 1;
+        while (getEnd(child) < end) {
+            child = getEnd(child);
+        }
+        return child;
+    }
+
+    private static Selector toSelector(String selector) {
+        if (selector.startsWith("#")) return new IdSelector(selector);
+        if (selector.startsWith(".")) return new ClassSelector(selector);
+        return new TagSelector(selector);
+    }
+
+    /**
+     * Appends nodes in preorder to growing arrays. The Stylesheet is opened when the Builder is created,
+     * so its top-level nodes can be added while they are parsed, e.g. as the consumer of an ASTBuilder.
+     * A Builder is not thread-safe.
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private byte[] kinds = new byte[INITIAL_CAPACITY];
+        private int[] sizes = new int[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int nodeCount;
+        private final HashMap<String, Integer> nameIndex = new HashMap<>();
+        private final ArrayList<String> names = new ArrayList<>();
+
+        Builder() {
+            open(STYLESHEET, 0);
+        }
+
+        /**
+         * Appends a top-level node and its subtree.
+         * @param node a VariableAssignment or Stylerule
+         * @throws IllegalArgumentException when a style rule has more than one selector or a node is not supported
+         */
+        public void add(ASTNode node) {
+            if (!(node instanceof VariableAssignment || node instanceof Stylerule)) {
+                throw new IllegalArgumentException("Not a top-level node: " + node.getNodeLabel());
+            }
+            append(node);
+        }
+
+        /**
+         * @return the CompactAST of all added nodes, the Builder must not be used afterwards
+         */
+        public CompactAST build() {
+            close(0);
+            return new CompactAST(Arrays.copyOf(kinds, nodeCount), Arrays.copyOf(sizes, nodeCount),
+                    Arrays.copyOf(values, nodeCount), names.toArray(new String[0]), nodeCount);
+        }
+
+        private void append(ASTNode node) {
+            if (node instanceof Stylerule) {
+                var stylerule = (Stylerule) node;
+                if (stylerule.selectors.size() != 1) {
+                    throw new IllegalArgumentException("A style rule must have exactly one selector");
+                }
+                var start = open(STYLERULE, intern(stylerule.selectors.get(0).toString()));
+                appendAll(stylerule.body);
+                close(start);
+            } else if (node instanceof Declaration) {
+                var declaration = (Declaration) node;
+                var start = open(DECLARATION, intern(declaration.property.name));
+                append(declaration.expression);
+                close(start);
+            } else if (node instanceof VariableAssignment) {
+                var assignment = (VariableAssignment) node;
+                var start = open(VARIABLE_ASSIGNMENT, intern(assignment.name.name));
+                append(assignment.expression);
+                close(start);
+            } else if (node instanceof IfClause) {
+                var ifClause = (IfClause) node;
+                var start = open(IF_CLAUSE, 0);
+                append(ifClause.conditionalExpression);
+                appendAll(ifClause.body);
+                if (ifClause.elseClause != null) {
+                    var elseStart = open(ELSE_CLAUSE, 0);
+                    appendAll(ifClause.elseClause.body);
+                    close(elseStart);
+                }
+                close(start);
+            } else if (node instanceof Operation) {
+                var operation = (Operation) node;
+                var start = open(getOperationKind(operation), 0);
+                append(operation.lhs);
+                append(operation.rhs);
+                close(start);
+            } else if (node instanceof VariableReference) {
+                leaf(VARIABLE_REFERENCE, intern(((VariableReference) node).name));
+            } else if (node instanceof PixelLiteral) {
+                leaf(PIXEL, ((PixelLiteral) node).value);
+            } else if (node instanceof PercentageLiteral) {
+                leaf(PERCENTAGE, ((PercentageLiteral) node).value);
+            } else if (node instanceof ScalarLiteral) {
+                leaf(SCALAR, ((ScalarLiteral) node).value);
+            } else if (node instanceof ColorLiteral) {
+                leaf(COLOR, intern(((ColorLiteral) node).value));
+            } else if (node instanceof BoolLiteral) {
+                leaf(BOOL, ((BoolLiteral) node).value ? 1 : 0);
+            } else {
+                throw new IllegalArgumentException("Unsupported node: " + (node == null ? null : node.getNodeLabel()));
+            }
+        }
+
+        private void appendAll(ArrayList<ASTNode> body) {
+            for (var child : body) {
+                append(child);
+            }
+        }
+
+        private static byte getOperationKind(Operation operation) {
+            if (operation instanceof AddOperation) return ADD;
+            if (operation instanceof SubtractOperation) return SUBTRACT;
+            if (operation instanceof MultiplyOperation) return MULTIPLY;
+            throw new IllegalArgumentException("Unsupported node: " + operation.getNodeLabel());
+        }
+
+        /**
+         * Appends a node whose children follow, its size is set by close.
+         * @return the index of the node
+         */
+        int open(byte kind, int value) {
+            if (nodeCount == kinds.length) {
+                var capacity = nodeCount * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            kinds[nodeCount] = kind;
+            values[nodeCount] = value;
+            return nodeCount++;
+        }
+
+        /**
+         * Ends the subtree of an opened node after its last appended descendant.
+         */
+        void close(int node) {
+            sizes[node] = nodeCount - node;
+        }
+
+        void leaf(byte kind, int value) {
+            close(open(kind, value));
+        }
+
+        /**
+         * @return the index of the name in the name table, equal names share one entry
+         */
+        int intern(String name) {
+            var index = nameIndex.get(name);
+            if (index == null) {
+                index = names.size();
+                names.add(name);
+                nameIndex.put(name, index);
+            }
+            return index;
+        }
+    }
+}
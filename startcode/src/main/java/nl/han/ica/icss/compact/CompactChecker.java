@@ -0,0 +1,142 @@
+package nl.han.ica.icss.compact;
+
+import nl.han.ica.datastructures.IHANScope;
+import nl.han.ica.datastructures.MyHanScope;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.checker.TypeRules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static nl.han.ica.icss.compact.CompactAST.*;
+
+/**
+ * Checks a CompactAST with the same TypeRules and scopes as the Checker.
+ * Nodes of a CompactAST have no error field, the errors are kept per node index during a check.
+ */
+public class CompactChecker {
+    private CompactAST ast;
+    private String[] errors;
+
+    /**
+     * @param ast the CompactAST to check
+     * @return the errors in the same order and with the same text as the errors of the checked AST
+     */
+    public List<String> check(CompactAST ast) {
+        this.ast = ast;
+        this.errors = new String[ast.getNodeCount()];
+        var globalVariables = new MyHanScope<ExpressionType>();
+        for (int child = 1; child < ast.getNodeCount(); child = ast.getEnd(child)) {
+            if (ast.getKind(child) == VARIABLE_ASSIGNMENT) {
+                checkVariableAssignment(child, globalVariables);
+            }
+
+            if (ast.getKind(child) == STYLERULE) {
+                checkRuleBody(child + 1, ast.getEnd(child), globalVariables.createChild());
+            }
+        }
+
+        //Preorder, like AST.getErrors
+        var result = new ArrayList<String>();
+        for (var error : errors) {
+            if (error != null) {
+                result.add(new SemanticError(error).toString());
+            }
+        }
+        this.ast = null;
+        this.errors = null;
+        return result;
+    }
+
+    private void checkRuleBody(int start, int end, IHANScope<ExpressionType> scopeVars) {
+        for (int child = start; child < end; child = ast.getEnd(child)) {
+            switch (ast.getKind(child)) {
+                case VARIABLE_ASSIGNMENT:
+                    checkVariableAssignment(child, scopeVars);
+                    break;
+                case DECLARATION:
+                    setError(child, TypeRules.declarationError(ast.getName(child), checkExpression(child + 1, scopeVars)));
+                    break;
+                case IF_CLAUSE:
+                    checkIfClause(child, scopeVars);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void checkVariableAssignment(int assignment, IHANScope<ExpressionType> scopeVars) {
+        var expressionType = checkExpression(assignment + 1, scopeVars);
+        scopeVars.declare(ast.getName(assignment), expressionType);
+    }
+
+    private void checkIfClause(int ifClause, IHANScope<ExpressionType> scopeVars) {
+        var condition = ifClause + 1;
+        if (ast.getKind(condition) == VARIABLE_REFERENCE) {
+            var expressionType = checkVarReference(condition, scopeVars);
+            setError(ifClause, TypeRules.conditionError(ast.getName(condition), expressionType));
+        }
+
+        var end = ast.getEnd(ifClause);
+        var last = ast.lastChild(ifClause);
+        if (ast.getKind(last) == ELSE_CLAUSE) {
+            checkRuleBody(last + 1, end, scopeVars.createChild());
+            end = last;
+        }
+        checkRuleBody(ast.getEnd(condition), end, scopeVars.createChild());
+    }
+
+    private ExpressionType checkExpression(int expression, IHANScope<ExpressionType> scopeVars) {
+        switch (ast.getKind(expression)) {
+            case PIXEL:
+                return ExpressionType.PIXEL;
+            case PERCENTAGE:
+                return ExpressionType.PERCENTAGE;
+            case SCALAR:
+                return ExpressionType.SCALAR;
+            case COLOR:
+                return ExpressionType.COLOR;
+            case BOOL:
+                return ExpressionType.BOOL;
+            case VARIABLE_REFERENCE:
+                return checkVarReference(expression, scopeVars);
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+                return checkOperation(expression, scopeVars);
+            default:
+                return ExpressionType.UNDEFINED;
+        }
+    }
+
+    private ExpressionType checkOperation(int operation, IHANScope<ExpressionType> scopeVars) {
+        var lhs = operation + 1;
+        ExpressionType left = checkExpression(lhs, scopeVars);
+        ExpressionType right = checkExpression(ast.getEnd(lhs), scopeVars);
+        var multiply = ast.getKind(operation) == MULTIPLY;
+        setError(operation, TypeRules.operationError(multiply, left, right));
+        return TypeRules.getOperationType(multiply, left, right);
+    }
+
+    private ExpressionType checkVarReference(int reference, IHANScope<ExpressionType> scopeVars) {
+        var name = ast.getName(reference);
+        var expressionType = scopeVars.lookup(name);
+
+        if (expressionType == null) {
+            setError(reference, TypeRules.undefinedVariableError(name));
+            return ExpressionType.UNDEFINED;
+        }
+        return expressionType;
+    }
+
+    /**
+     * Like ASTNode.setError a later error replaces an earlier one, null keeps the current error.
+     */
+    private void setError(int node, String error) {
+        if (error != null) {
+            errors[node] = error;
+        }
+    }
+}
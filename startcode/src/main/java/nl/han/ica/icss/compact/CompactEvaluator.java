@@ -0,0 +1,131 @@
+package nl.han.ica.icss.compact;
+
+import nl.han.ica.datastructures.IHANScope;
+import nl.han.ica.datastructures.MyHanScope;
+
+import static nl.han.ica.icss.compact.CompactAST.*;
+
+/**
+ * Evaluates a checked CompactAST with the same scopes as the Evaluator.
+ * The result is a new CompactAST of only the style rules, with a Declaration of a literal for every evaluated declaration,
+ * the variable assignments are left out because the Generator does not use them.
+ *
+ * The value of a literal is held in a single long, its kind in the high and its int value in the low half,
+ * so evaluating an expression does not create objects.
+ */
+public class CompactEvaluator {
+    private CompactAST ast;
+    private Builder result;
+
+    /**
+     * @param ast a CompactAST without errors, it is not changed
+     * @return the evaluated CompactAST
+     */
+    public CompactAST apply(CompactAST ast) {
+        this.ast = ast;
+        this.result = new Builder();
+        var globalVariables = new MyHanScope<Long>();
+        for (int child = 1; child < ast.getNodeCount(); child = ast.getEnd(child)) {
+            if (ast.getKind(child) == VARIABLE_ASSIGNMENT) {
+                globalVariables.declare(ast.getName(child), evaluateExpression(child + 1, globalVariables));
+            }
+
+            if (ast.getKind(child) == STYLERULE) {
+                var stylerule = result.open(STYLERULE, result.intern(ast.getName(child)));
+                transformRuleBody(child + 1, ast.getEnd(child), globalVariables.createChild());
+                result.close(stylerule);
+            }
+        }
+        var evaluated = result.build();
+        this.ast = null;
+        this.result = null;
+        return evaluated;
+    }
+
+    private void transformRuleBody(int start, int end, IHANScope<Long> scopeVars) {
+        for (int child = start; child < end; child = ast.getEnd(child)) {
+            switch (ast.getKind(child)) {
+                case VARIABLE_ASSIGNMENT:
+                    scopeVars.declare(ast.getName(child), evaluateExpression(child + 1, scopeVars));
+                    break;
+                case DECLARATION:
+                    var declaration = result.open(DECLARATION, result.intern(ast.getName(child)));
+                    appendLiteral(evaluateExpression(child + 1, scopeVars));
+                    result.close(declaration);
+                    break;
+                case IF_CLAUSE:
+                    transformIfClause(child, scopeVars);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Appends the evaluated declarations of the branch chosen by the condition.
+     */
+    private void transformIfClause(int ifClause, IHANScope<Long> scopeVars) {
+        var condition = ifClause + 1;
+        var end = ast.getEnd(ifClause);
+        var last = ast.lastChild(ifClause);
+        var hasElse = ast.getKind(last) == ELSE_CLAUSE;
+
+        if (valueOf(evaluateExpression(condition, scopeVars)) != 0) {
+            transformRuleBody(ast.getEnd(condition), hasElse ? last : end, scopeVars.createChild());
+        } else if (hasElse) {
+            transformRuleBody(last + 1, end, scopeVars.createChild());
+        }
+    }
+
+    private long evaluateExpression(int expression, IHANScope<Long> scopeVars) {
+        var kind = ast.getKind(expression);
+        switch (kind) {
+            case VARIABLE_REFERENCE:
+                return scopeVars.lookup(ast.getName(expression));
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+                return evaluateOperation(expression, scopeVars);
+            default:
+                //Colors keep the index of their name in the evaluated AST
+                return literal(kind, ast.getValue(expression));
+        }
+    }
+
+    private long evaluateOperation(int operation, IHANScope<Long> scopeVars) {
+        var lhs = operation + 1;
+        var left = evaluateExpression(lhs, scopeVars);
+        var right = evaluateExpression(ast.getEnd(lhs), scopeVars);
+        switch (ast.getKind(operation)) {
+            case ADD:
+                return literal(kindOf(left), valueOf(left) + valueOf(right));
+            case SUBTRACT:
+                return literal(kindOf(left), valueOf(left) - valueOf(right));
+            default:
+                var kind = kindOf(left) == SCALAR ? kindOf(right) : kindOf(left);
+                return literal(kind, valueOf(left) * valueOf(right));
+        }
+    }
+
+    private void appendLiteral(long literal) {
+        var kind = kindOf(literal);
+        if (kind == COLOR) {
+            result.leaf(COLOR, result.intern(ast.getNameAt(valueOf(literal))));
+        } else {
+            result.leaf(kind, valueOf(literal));
+        }
+    }
+
+    private static long literal(byte kind, int value) {
+        return ((long) kind << 32) | (value & 0xffffffffL);
+    }
+
+    private static byte kindOf(long literal) {
+        return (byte) (literal >>> 32);
+    }
+
+    private static int valueOf(long literal) {
+        return (int) literal;
+    }
+}
@@ -0,0 +1,64 @@
+package nl.han.ica.icss.compact;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static nl.han.ica.icss.compact.CompactAST.*;
+
+/**
+ * Generates the same CSS as the Generator from an evaluated CompactAST.
+ */
+public class CompactGenerator {
+
+    public String generate(CompactAST ast) {
+        var sb = new StringBuilder();
+        try {
+            generate(ast, sb);
+        } catch (IOException e) {
+            //StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param ast the evaluated CompactAST
+     * @param out the destination of the generated CSS
+     * @throws IOException when writing to out fails
+     */
+    public void generate(CompactAST ast, Appendable out) throws IOException {
+        var first = true;
+        for (int child = 1; child < ast.getNodeCount(); child = ast.getEnd(child)) {
+            if (ast.getKind(child) == STYLERULE) {
+                //Rules are separated by a blank line, without trailing whitespace after the last one
+                if (!first) out.append("\n\n");
+                generateStyleRule(ast, child, out);
+                first = false;
+            }
+        }
+    }
+
+    private void generateStyleRule(CompactAST ast, int stylerule, Appendable out) throws IOException {
+        out.append(ast.getName(stylerule)).append(" {\n");
+        for (int child = stylerule + 1; child < ast.getEnd(stylerule); child = ast.getEnd(child)) {
+            out.append("  ").append(ast.getName(child)).append(": ");
+            appendLiteralValue(ast, child + 1, out);
+            out.append(";\n");
+        }
+        out.append("}");
+    }
+
+    private void appendLiteralValue(CompactAST ast, int literal, Appendable out) throws IOException {
+        switch (ast.getKind(literal)) {
+            case PERCENTAGE:
+                out.append(Integer.toString(ast.getValue(literal))).append('%');
+                break;
+            case PIXEL:
+                out.append(Integer.toString(ast.getValue(literal))).append("px");
+                break;
+            default:
+                out.append(ast.getName(literal));
+                break;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package nl.han.ica.icss.corpus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic ICSS following ICSS.g4, for benchmarks and scaling tests.
+ * The output only depends on the seed and the knobs, so the same corpus can be reproduced
+ * without checking it into the repository.
+ * Rules are valid ICSS, unless invalidRatio is set: then that fraction of the style rules
+ * contains one semantic error (the input still parses).
+ */
+public class CorpusGenerator {
+
+    private static final int PIXEL = 0;
+    private static final int PERCENTAGE = 1;
+    private static final int COLOR = 2;
+    private static final int BOOL = 3;
+
+    private static final String[] TAGS = {"p", "a", "div", "span", "section", "nav", "li", "h1"};
+    private static final String[] COLOR_PROPERTIES = {"color", "background-color"};
+    private static final String[] SIZE_PROPERTIES = {"width", "height"};
+
+    private final long seed;
+    private int styleRules = 100;
+    private long targetSize = 0;
+    private int globalVariables = 20;
+    private int scopedVariables = 2;
+    private int ifDepth = 2;
+    private int expressionLength = 3;
+    private int[] literalWeights = {4, 2, 3, 1};
+    private double invalidRatio = 0.0;
+
+    //State of the current run
+    private Random random;
+    private List<List<String>> globals;
+    private List<List<String>> locals;
+
+    public CorpusGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Number of style rules to generate, ignored when a target size is set.
+     */
+    public CorpusGenerator styleRules(int styleRules) {
+        this.styleRules = styleRules;
+        return this;
+    }
+
+    /**
+     * Keeps generating style rules until at least this many characters are written.
+     */
+    public CorpusGenerator targetSize(long characters) {
+        this.targetSize = characters;
+        return this;
+    }
+
+    public CorpusGenerator globalVariables(int globalVariables) {
+        this.globalVariables = globalVariables;
+        return this;
+    }
+
+    /**
+     * Number of variables assigned at the top of every style rule.
+     */
+    public CorpusGenerator scopedVariables(int scopedVariables) {
+        this.scopedVariables = scopedVariables;
+        return this;
+    }
+
+    /**
+     * Maximum nesting depth of if/else clauses, 0 generates no if clauses.
+     */
+    public CorpusGenerator ifDepth(int ifDepth) {
+        this.ifDepth = ifDepth;
+        return this;
+    }
+
+    /**
+     * Maximum number of terms in an add/subtract chain.
+     */
+    public CorpusGenerator expressionLength(int expressionLength) {
+        this.expressionLength = Math.max(1, expressionLength);
+        return this;
+    }
+
+    /**
+     * Relative weights of the literal types of variables and declarations.
+     * Declarations need a pixel, percentage or color value, so at least one of those weights must be positive.
+     * @throws IllegalArgumentException when a weight is negative or pixel, percentage and color are all 0
+     */
+    public CorpusGenerator literalMix(int pixel, int percentage, int color, int bool) {
+        if (pixel < 0 || percentage < 0 || color < 0 || bool < 0) {
+            throw new IllegalArgumentException("Literal weights must not be negative");
+        }
+        if (pixel + percentage + color == 0) {
+            throw new IllegalArgumentException("At least one of the pixel, percentage and color weights must be positive");
+        }
+        this.literalWeights = new int[]{pixel, percentage, color, bool};
+        return this;
+    }
+
+    /**
+     * Fraction (0 to 1) of the style rules that contain a semantic error.
+     */
+    public CorpusGenerator invalidRatio(double invalidRatio) {
+        this.invalidRatio = invalidRatio;
+        return this;
+    }
+
+    public String generate() {
+        var sb = new StringBuilder();
+        try {
+            generate(sb);
+        } catch (IOException e) {
+            //StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the corpus to out, rule by rule, so corpora larger than the heap can be written to a file.
+     * @param out destination of the ICSS
+     * @throws IOException when writing fails
+     */
+    public void generate(Appendable out) throws IOException {
+        random = new Random(seed);
+        globals = newTypeLists();
+        var counter = new CountingAppendable(out);
+
+        for (int i = 0; i < globalVariables; i++) {
+            var type = randomType();
+            var name = "Global" + i;
+            counter.append(name).append(" := ").append(expression(type, globals, null)).append(";\n");
+            globals.get(type).add(name);
+        }
+        counter.append('\n');
+
+        for (int rule = 0; targetSize > 0 ? counter.count < targetSize : rule < styleRules; rule++) {
+            styleRule(rule, counter);
+        }
+    }
+
+    private void styleRule(int rule, Appendable out) throws IOException {
+        locals = newTypeLists();
+        out.append(selector(rule)).append(" {\n");
+        for (int i = 0; i < scopedVariables; i++) {
+            var type = randomType();
+            var name = "Local" + rule + "_" + i;
+            out.append('\t').append(name).append(" := ").append(expression(type, globals, locals)).append(";\n");
+            locals.get(type).add(name);
+        }
+
+        var invalid = random.nextDouble() < invalidRatio;
+        var declarations = 1 + random.nextInt(3);
+        for (int i = 0; i < declarations; i++) {
+            declaration(out, 1);
+        }
+        if (ifDepth > 0) {
+            ifClause(out, 1, ifDepth);
+        }
+        if (invalid) {
+            out.append('\t').append(invalidStatement()).append('\n');
+        }
+        out.append("}\n\n");
+    }
+
+    private String selector(int rule) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return TAGS[random.nextInt(TAGS.length)];
+            case 1:
+                //Prefix keeps the id from lexing as a color
+                return "#id-" + rule;
+            default:
+                return ".c-" + rule;
+        }
+    }
+
+    private void declaration(Appendable out, int indent) throws IOException {
+        var type = random.nextInt(literalWeights[PIXEL] + literalWeights[PERCENTAGE] + literalWeights[COLOR]) < literalWeights[COLOR] ? COLOR : sizeType();
+        var properties = type == COLOR ? COLOR_PROPERTIES : SIZE_PROPERTIES;
+        indent(out, indent);
+        out.append(properties[random.nextInt(properties.length)]).append(": ").append(expression(type, globals, locals)).append(";\n");
+    }
+
+    private void ifClause(Appendable out, int indent, int depth) throws IOException {
+        indent(out, indent);
+        out.append("if[").append(condition()).append("] {\n");
+        declaration(out, indent + 1);
+        if (depth > 1 && random.nextBoolean()) {
+            ifClause(out, indent + 1, depth - 1);
+        }
+        indent(out, indent);
+        out.append('}');
+        if (random.nextBoolean()) {
+            out.append(" else {\n");
+            declaration(out, indent + 1);
+            if (depth > 1 && random.nextBoolean()) {
+                ifClause(out, indent + 1, depth - 1);
+            }
+            indent(out, indent);
+            out.append('}');
+        }
+        out.append('\n');
+    }
+
+    private String condition() {
+        var candidates = globals.get(BOOL);
+        if (!candidates.isEmpty() && random.nextBoolean()) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+        return random.nextBoolean() ? "TRUE" : "FALSE";
+    }
+
+    /**
+     * Creates an expression of the given type from literals and variables already in scope.
+     */
+    private String expression(int type, List<List<String>> globalScope, List<List<String>> localScope) {
+        if (type == COLOR || type == BOOL) {
+            return term(type, globalScope, localScope);
+        }
+        var sb = new StringBuilder(term(type, globalScope, localScope));
+        var terms = random.nextInt(expressionLength);
+        for (int i = 0; i < terms; i++) {
+            sb.append(random.nextBoolean() ? " + " : " - ").append(term(type, globalScope, localScope));
+        }
+        return sb.toString();
+    }
+
+    private String term(int type, List<List<String>> globalScope, List<List<String>> localScope) {
+        var operand = operand(type, globalScope, localScope);
+        if ((type == PIXEL || type == PERCENTAGE) && random.nextInt(4) == 0) {
+            var scalar = String.valueOf(1 + random.nextInt(4));
+            return random.nextBoolean() ? scalar + " * " + operand : operand + " * " + scalar;
+        }
+        return operand;
+    }
+
+    private String operand(int type, List<List<String>> globalScope, List<List<String>> localScope) {
+        var candidates = new ArrayList<>(globalScope.get(type));
+        if (localScope != null) candidates.addAll(localScope.get(type));
+        if (!candidates.isEmpty() && random.nextBoolean()) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+        return literal(type);
+    }
+
+    private String literal(int type) {
+        switch (type) {
+            case PIXEL:
+                return random.nextInt(200) + "px";
+            case PERCENTAGE:
+                return random.nextInt(100) + "%";
+            case COLOR:
+                return String.format("#%06x", random.nextInt(0x1000000));
+            default:
+                return random.nextBoolean() ? "TRUE" : "FALSE";
+        }
+    }
+
+    /**
+     * A statement that parses, but violates one of the checks of the Checker.
+     */
+    private String invalidStatement() {
+        switch (random.nextInt(6)) {
+            case 0:
+                return "width: Undefined" + random.nextInt(1000) + ";";
+            case 1:
+                return "width: " + literal(COLOR) + " + " + literal(PIXEL) + ";";
+            case 2:
+                return "width: " + literal(COLOR) + ";";
+            case 3:
+                return "width: " + literal(PIXEL) + " + " + literal(PERCENTAGE) + ";";
+            case 4:
+                return "margin: " + literal(PIXEL) + ";";
+            default:
+                //The grammar only allows a variable or boolean literal as condition, so a non boolean variable is used
+                var nonBool = new ArrayList<>(globals.get(PIXEL));
+                nonBool.addAll(globals.get(COLOR));
+                if (nonBool.isEmpty()) return "color: " + literal(PIXEL) + ";";
+                return "if[" + nonBool.get(random.nextInt(nonBool.size())) + "] { color: " + literal(COLOR) + "; }";
+        }
+    }
+
+    private int randomType() {
+        var total = 0;
+        for (var weight : literalWeights) total += weight;
+        var pick = random.nextInt(total);
+        for (int type = 0; type < literalWeights.length; type++) {
+            if (pick < literalWeights[type]) return type;
+            pick -= literalWeights[type];
+        }
+        return PIXEL;
+    }
+
+    private int sizeType() {
+        var total = literalWeights[PIXEL] + literalWeights[PERCENTAGE];
+        return total == 0 || random.nextInt(total) < literalWeights[PIXEL] ? PIXEL : PERCENTAGE;
+    }
+
+    private static void indent(Appendable out, int indent) throws IOException {
+        for (int i = 0; i < indent; i++) out.append('\t');
+    }
+
+    private static List<List<String>> newTypeLists() {
+        var lists = new ArrayList<List<String>>();
+        for (int type = PIXEL; type <= BOOL; type++) lists.add(new ArrayList<>());
+        return lists;
+    }
+
+    /**
+     * Writes a corpus to a file.
+     * Usage: CorpusGenerator output.icss [--seed n] [--rules n] [--size 64mb] [--invalid 0.1]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CorpusGenerator <output file> [--seed n] [--rules n] [--size n[kb|mb|gb]] [--globals n] [--locals n] [--if-depth n] [--expression-length n] [--invalid ratio]");
+            System.exit(2);
+        }
+        var seed = 0L;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--seed")) seed = Long.parseLong(args[i + 1]);
+        }
+        var generator = new CorpusGenerator(seed);
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            var value = args[i + 1];
+            switch (args[i]) {
+                case "--seed": break;
+                case "--rules": generator.styleRules(Integer.parseInt(value)); break;
+                case "--size": generator.targetSize(parseSize(value)); break;
+                case "--globals": generator.globalVariables(Integer.parseInt(value)); break;
+                case "--locals": generator.scopedVariables(Integer.parseInt(value)); break;
+                case "--if-depth": generator.ifDepth(Integer.parseInt(value)); break;
+                case "--expression-length": generator.expressionLength(Integer.parseInt(value)); break;
+                case "--invalid": generator.invalidRatio(Double.parseDouble(value)); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        try (Writer out = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            generator.generate(out);
+        }
+    }
+
+    static long parseSize(String size) {
+        var lower = size.toLowerCase();
+        if (lower.endsWith("kb")) return Long.parseLong(lower.substring(0, lower.length() - 2)) * 1024;
+        if (lower.endsWith("mb")) return Long.parseLong(lower.substring(0, lower.length() - 2)) * 1024 * 1024;
+        if (lower.endsWith("gb")) return Long.parseLong(lower.substring(0, lower.length() - 2)) * 1024 * 1024 * 1024;
+        return Long.parseLong(lower);
+    }
+
+    /**
+     * Counts the characters written, used for the target size.
+     */
+    private static class CountingAppendable implements Appendable {
+        private final Appendable out;
+        private long count;
+
+        CountingAppendable(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            count += csq.length();
+            out.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            count += end - start;
+            out.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            count++;
+            out.append(c);
+            return this;
+        }
+    }
+}
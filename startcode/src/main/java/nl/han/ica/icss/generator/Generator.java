@@ -6,33 +6,77 @@ import nl.han.ica.icss.ast.literals.PercentageLiteral;
 import nl.han.ica.icss.ast.literals.PixelLiteral;
 import nl.han.ica.icss.ast.literals.ScalarLiteral;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
 public class Generator {
+	//Size of the buffer between the generator and an OutputStream, keeps memory bounded for huge stylesheets
+	private static final int STREAM_BUFFER_SIZE = 8192;
+
 	public String generate(AST ast) {
 		var sb = new StringBuilder();
-		generateStyleSheet(ast.root, sb);
-        return sb.toString().trim();
+		try {
+			generate(ast, sb);
+		} catch (IOException e) {
+			//StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the CSS of the given AST to out, one Stylerule at a time,
+	 * so the complete output never has to be kept in memory.
+	 * @param ast the transformed AST
+	 * @param out the destination of the generated CSS
+	 * @throws IOException when writing to out fails
+	 */
+	public void generate(AST ast, Appendable out) throws IOException {
+		generateStyleSheet(ast.root, out);
+	}
+
+	/**
+	 * Writes the CSS of the given AST as UTF-8 to out, using a bounded buffer.
+	 * The stream is flushed but not closed.
+	 * @param ast the transformed AST
+	 * @param out the destination of the generated CSS
+	 * @throws IOException when writing to out fails
+	 */
+	public void generate(AST ast, OutputStream out) throws IOException {
+		var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+		generate(ast, writer);
+		writer.flush();
 	}
 
-	private void generateStyleSheet(ASTNode styleSheet, StringBuilder sb) {
-		for (var child : styleSheet.getChildren()) {
+	private void generateStyleSheet(Stylesheet styleSheet, Appendable out) throws IOException {
+		var first = true;
+		for (var child : styleSheet.body) {
 			if (child instanceof Stylerule) {
-				generateStyleRule((Stylerule) child, sb);
-				sb.append("\n\n");
+				//Rules are separated by a blank line, without trailing whitespace after the last one
+				if (!first) out.append("\n\n");
+				generateStyleRule((Stylerule) child, out);
+				first = false;
 			}
 		}
 	}
 
-	private void generateStyleRule(Stylerule stylerule, StringBuilder sb) {
+	/**
+	 * Writes the CSS of a single transformed Stylerule, without separating whitespace around it.
+	 * @param stylerule the transformed Stylerule
+	 * @param out the destination of the generated CSS
+	 * @throws IOException when writing to out fails
+	 */
+	public void generateStyleRule(Stylerule stylerule, Appendable out) throws IOException {
 		var selector = stylerule.selectors.get(0).toString();
-		sb.append(selector).append(" {\n");
+		out.append(selector).append(" {\n");
 		for (var child : stylerule.body) {
-			generateDeclaration((Declaration) child, sb);
+			generateDeclaration((Declaration) child, out);
 		}
-		sb.append("}");
+		out.append("}");
 	}
 
-	private void generateDeclaration(Declaration declaration, StringBuilder sb) {
-		sb.append("  ").append(declaration.property.name).append(": ").append(getLiteralValue(declaration.expression)).append(";").append("\n");
+	private void generateDeclaration(Declaration declaration, Appendable out) throws IOException {
+		out.append("  ").append(declaration.property.name).append(": ").append(getLiteralValue(declaration.expression)).append(";").append("\n");
 	}
 
 	private String getLiteralValue(Expression literal){
@@ -0,0 +1,191 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.datastructures.MyHanStack;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Builds the same AST as the ASTListener, but as a parse listener of the ICSSParser instead of in a walk afterwards,
+ * so the parser does not have to build a parse tree:
+ * <pre>
+ *     parser.setBuildParseTree(false);
+ *     parser.addParseListener(builder);
+ * </pre>
+ * Without a parse tree a rule context does not know its child rules, only the tokens it matched itself.
+ * Expressions are therefore built bottom-up on exit: every operand is pushed on a stack and an operation,
+ * a context whose only child is its operator token, takes the two operands on top of it.
+ *
+ * To stream a stylesheet, every completed variable assignment and style rule at the top level
+ * can be handed to a consumer instead of being added to the Stylesheet.
+ */
+public class ASTBuilder extends ICSSBaseListener {
+
+	private final AST ast = new AST();
+	//Stylesheet, style rules, if and else clauses, declarations and variable assignments being built
+	private final IHANStack<ASTNode> currentContainer = new MyHanStack<>();
+	//Expressions not yet added to their parent, a Deque because a syntax error can leave it empty
+	private final Deque<Expression> operands = new ArrayDeque<>();
+	//Receives the top-level nodes instead of the Stylesheet, or null to keep them
+	private final Consumer<ASTNode> topLevelConsumer;
+
+	public ASTBuilder() {
+		this(null);
+	}
+
+	/**
+	 * @param topLevelConsumer receives every top-level variable assignment and style rule as soon as it is parsed,
+	 *                         they are not added to the AST
+	 */
+	public ASTBuilder(Consumer<ASTNode> topLevelConsumer) {
+		this.topLevelConsumer = topLevelConsumer;
+	}
+
+	public AST getAST() {
+		return ast;
+	}
+
+	@Override public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
+		currentContainer.push(ast.root);
+	}
+
+	@Override public void exitStylesheet(ICSSParser.StylesheetContext ctx) {
+		currentContainer.pop();
+	}
+
+	@Override public void enterStyleRule(ICSSParser.StyleRuleContext ctx) {
+		currentContainer.push(new Stylerule());
+	}
+
+	@Override public void exitStyleRule(ICSSParser.StyleRuleContext ctx) {
+		addToParent(currentContainer.pop());
+	}
+
+	@Override public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+		currentContainer.push(new VariableAssignment());
+	}
+
+	@Override public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+		var assignment = (VariableAssignment) currentContainer.pop();
+		assignment.expression = operands.pollLast();
+		var name = operands.pollLast();
+		assignment.name = name instanceof VariableReference ? (VariableReference) name : null;
+		addToParent(assignment);
+	}
+
+	@Override public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
+		operands.addLast(new VariableReference(ctx.getStart().getText()));
+	}
+
+	@Override public void enterDecleration(ICSSParser.DeclerationContext ctx) {
+		currentContainer.push(new Declaration());
+	}
+
+	@Override public void exitDecleration(ICSSParser.DeclerationContext ctx) {
+		var declaration = (Declaration) currentContainer.pop();
+		declaration.expression = operands.pollLast();
+		addToParent(declaration);
+	}
+
+	@Override public void exitPropertyName(ICSSParser.PropertyNameContext ctx) {
+		currentContainer.peek().addChild(new PropertyName(ctx.getStart().getText()));
+	}
+
+	@Override public void exitBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
+		operands.addLast(BoolLiteral.parse(ctx.getStart().getText()));
+	}
+
+	@Override public void exitColorLiteral(ICSSParser.ColorLiteralContext ctx) {
+		operands.addLast(ColorLiteral.of(ctx.getStart().getText()));
+	}
+
+	@Override public void exitPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
+		operands.addLast(PercentageLiteral.parse(ctx.getStart().getText()));
+	}
+
+	@Override public void exitPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
+		operands.addLast(PixelLiteral.parse(ctx.getStart().getText()));
+	}
+
+	@Override public void exitScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
+		operands.addLast(ScalarLiteral.parse(ctx.getStart().getText()));
+	}
+
+	@Override public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
+		currentContainer.peek().addChild(new ClassSelector(ctx.getStart().getText()));
+	}
+
+	@Override public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
+		currentContainer.peek().addChild(new IdSelector(ctx.getStart().getText()));
+	}
+
+	@Override public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
+		currentContainer.peek().addChild(new TagSelector(ctx.getStart().getText()));
+	}
+
+	@Override
+	public void exitExpression(ICSSParser.ExpressionContext ctx) {
+		//A literal or variable reference is already on the stack, they are child rules and not children of ctx
+		if (ctx.getChildCount() != 1 || !(ctx.getChild(0) instanceof TerminalNode)) {
+			return;
+		}
+		Operation operation;
+		switch (((TerminalNode) ctx.getChild(0)).getSymbol().getType()) {
+			case ICSSParser.MUL:
+				operation = new MultiplyOperation();
+				break;
+			case ICSSParser.PLUS:
+				operation = new AddOperation();
+				break;
+			default:
+				operation = new SubtractOperation();
+				break;
+		}
+		operation.rhs = operands.pollLast();
+		operation.lhs = operands.pollLast();
+		operands.addLast(operation);
+	}
+
+	@Override
+	public void enterIfClause(ICSSParser.IfClauseContext ctx) {
+		currentContainer.push(new IfClause());
+	}
+
+	@Override
+	public void exitIfClause(ICSSParser.IfClauseContext ctx) {
+		//The body took its own operands, so the condition is on top
+		var ifClause = (IfClause) currentContainer.pop();
+		ifClause.conditionalExpression = operands.pollLast();
+		addToParent(ifClause);
+	}
+
+	@Override
+	public void enterElseClause(ICSSParser.ElseClauseContext ctx) {
+		currentContainer.push(new ElseClause());
+	}
+
+	@Override
+	public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
+		addToParent(currentContainer.pop());
+	}
+
+	private void addToParent(ASTNode node) {
+		var parent = currentContainer.peek();
+		if (parent == ast.root && topLevelConsumer != null) {
+			topLevelConsumer.accept(node);
+		} else {
+			parent.addChild(node);
+		}
+	}
+}
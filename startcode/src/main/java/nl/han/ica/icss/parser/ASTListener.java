@@ -76,24 +76,25 @@ public class ASTListener extends ICSSBaseListener {
 		currentContainer.peek().addChild(new PropertyName(ctx.getText()));
 	}
 
+	//Literals are shared instances and parsed straight from the token, without building the text of the rule context
 	@Override public void enterBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
-		currentContainer.peek().addChild(new BoolLiteral(ctx.getText()));
+		currentContainer.peek().addChild(BoolLiteral.parse(ctx.getStart().getText()));
 	}
 
 	@Override public void enterColorLiteral(ICSSParser.ColorLiteralContext ctx) {
-		currentContainer.peek().addChild(new ColorLiteral(ctx.getText()));
+		currentContainer.peek().addChild(ColorLiteral.of(ctx.getStart().getText()));
 	}
 
 	@Override public void enterPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
-		currentContainer.peek().addChild(new PercentageLiteral(ctx.getText()));
+		currentContainer.peek().addChild(PercentageLiteral.parse(ctx.getStart().getText()));
 	}
 
 	@Override public void enterPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
-		currentContainer.peek().addChild(new PixelLiteral(ctx.getText()));
+		currentContainer.peek().addChild(PixelLiteral.parse(ctx.getStart().getText()));
 	}
 
 	@Override public void enterScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
-		currentContainer.peek().addChild(new ScalarLiteral(ctx.getText()));
+		currentContainer.peek().addChild(ScalarLiteral.parse(ctx.getStart().getText()));
 	}
 
 	@Override public void enterClassSelector(ICSSParser.ClassSelectorContext ctx) {
@@ -0,0 +1,240 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hand-written recursive-descent parser for the ICSS grammar that builds the AST while it reads the tokens,
+ * without an ANTLR parse tree. For valid input the AST equals the one of ICSSParser and ASTListener.
+ * Expressions are parsed by precedence climbing: * binds stronger than + and -, all operators are left-associative.
+ *
+ * Unlike ICSSParser it does not recover from syntax errors, parsing stops at the first one.
+ */
+public class DirectParser {
+
+	private final TokenScanner scanner;
+	private final List<String> errors = new ArrayList<>();
+
+	/**
+	 * @param input the ICSS source
+	 */
+	public DirectParser(CharSequence input) {
+		this.scanner = new TokenScanner(input, errors);
+	}
+
+	/**
+	 * @return the syntax errors of the last parse, empty if it parsed
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Parses the input from its start, so every call returns a new AST of the same input.
+	 * @return the AST, or an empty AST when there was a syntax error
+	 */
+	public AST parse() {
+		errors.clear();
+		scanner.reset();
+		try {
+			scanner.next();
+			return new AST(stylesheet());
+		} catch (SyntaxError e) {
+			return new AST();
+		}
+	}
+
+	private Stylesheet stylesheet() {
+		var stylesheet = new Stylesheet();
+		while (scanner.type == ICSSLexer.CAPITAL_IDENT) {
+			stylesheet.addChild(variableAssignment());
+		}
+		while (scanner.type != Token.EOF) {
+			stylesheet.addChild(styleRule());
+		}
+		return stylesheet;
+	}
+
+	private Stylerule styleRule() {
+		var stylerule = new Stylerule();
+		switch (scanner.type) {
+			case ICSSLexer.LOWER_IDENT:
+				stylerule.addChild(new TagSelector(scanner.text()));
+				break;
+			case ICSSLexer.ID_IDENT:
+				stylerule.addChild(new IdSelector(scanner.text()));
+				break;
+			case ICSSLexer.CLASS_IDENT:
+				stylerule.addChild(new ClassSelector(scanner.text()));
+				break;
+			default:
+				throw error("a selector");
+		}
+		scanner.next();
+		ruleBody(stylerule);
+		return stylerule;
+	}
+
+	private VariableAssignment variableAssignment() {
+		var assignment = new VariableAssignment();
+		assignment.name = variableReference();
+		expect(ICSSLexer.ASSIGNMENT_OPERATOR);
+		assignment.expression = expression();
+		expect(ICSSLexer.SEMICOLON);
+		return assignment;
+	}
+
+	private VariableReference variableReference() {
+		if (scanner.type != ICSSLexer.CAPITAL_IDENT) {
+			throw error(ICSSLexer.VOCABULARY.getDisplayName(ICSSLexer.CAPITAL_IDENT));
+		}
+		var reference = new VariableReference(scanner.text());
+		scanner.next();
+		return reference;
+	}
+
+	/**
+	 * Adds the declarations, if clauses and variable assignments of a rule body to parent.
+	 */
+	private void ruleBody(ASTNode parent) {
+		expect(ICSSLexer.OPEN_BRACE);
+		while (scanner.type != ICSSLexer.CLOSE_BRACE) {
+			switch (scanner.type) {
+				case ICSSLexer.LOWER_IDENT:
+					parent.addChild(declaration());
+					break;
+				case ICSSLexer.IF:
+					parent.addChild(ifClause());
+					break;
+				case ICSSLexer.CAPITAL_IDENT:
+					parent.addChild(variableAssignment());
+					break;
+				default:
+					throw error("a declaration, if clause, variable assignment or '}'");
+			}
+		}
+		scanner.next();
+	}
+
+	private Declaration declaration() {
+		var declaration = new Declaration(scanner.text());
+		scanner.next();
+		expect(ICSSLexer.COLON);
+		declaration.expression = expression();
+		expect(ICSSLexer.SEMICOLON);
+		return declaration;
+	}
+
+	private IfClause ifClause() {
+		var ifClause = new IfClause();
+		scanner.next();
+		expect(ICSSLexer.BOX_BRACKET_OPEN);
+		if (scanner.type == ICSSLexer.TRUE || scanner.type == ICSSLexer.FALSE) {
+			ifClause.conditionalExpression = literal();
+		} else {
+			ifClause.conditionalExpression = variableReference();
+		}
+		expect(ICSSLexer.BOX_BRACKET_CLOSE);
+		ruleBody(ifClause);
+		if (scanner.type == ICSSLexer.ELSE) {
+			scanner.next();
+			var elseClause = new ElseClause();
+			ruleBody(elseClause);
+			ifClause.elseClause = elseClause;
+		}
+		return ifClause;
+	}
+
+	private Expression expression() {
+		var lhs = term();
+		while (scanner.type == ICSSLexer.PLUS || scanner.type == ICSSLexer.MIN) {
+			Operation operation = scanner.type == ICSSLexer.PLUS ? new AddOperation() : new SubtractOperation();
+			scanner.next();
+			operation.lhs = lhs;
+			operation.rhs = term();
+			lhs = operation;
+		}
+		return lhs;
+	}
+
+	private Expression term() {
+		var lhs = operand();
+		while (scanner.type == ICSSLexer.MUL) {
+			Operation operation = new MultiplyOperation();
+			scanner.next();
+			operation.lhs = lhs;
+			operation.rhs = operand();
+			lhs = operation;
+		}
+		return lhs;
+	}
+
+	private Expression operand() {
+		if (scanner.type == ICSSLexer.CAPITAL_IDENT) {
+			return variableReference();
+		}
+		return literal();
+	}
+
+	private Literal literal() {
+		Literal literal;
+		switch (scanner.type) {
+			case ICSSLexer.PIXELSIZE:
+				literal = PixelLiteral.of(scanner.value);
+				break;
+			case ICSSLexer.PERCENTAGE:
+				literal = PercentageLiteral.of(scanner.value);
+				break;
+			case ICSSLexer.SCALAR:
+				literal = ScalarLiteral.of(scanner.value);
+				break;
+			case ICSSLexer.COLOR:
+				literal = ColorLiteral.of(scanner.text());
+				break;
+			case ICSSLexer.TRUE:
+				literal = BoolLiteral.TRUE;
+				break;
+			case ICSSLexer.FALSE:
+				literal = BoolLiteral.FALSE;
+				break;
+			default:
+				throw error("an expression");
+		}
+		scanner.next();
+		return literal;
+	}
+
+	private void expect(int type) {
+		if (scanner.type != type) {
+			throw error(ICSSLexer.VOCABULARY.getDisplayName(type));
+		}
+		scanner.next();
+	}
+
+	private SyntaxError error(String expected) {
+		var found = scanner.type == Token.EOF ? "<EOF>" : "'" + scanner.text() + "'";
+		errors.add("Syntax error: " + scanner.location(scanner.start) + " mismatched input " + found + " expecting " + expected);
+		return new SyntaxError();
+	}
+
+	/**
+	 * Ends the parse at the first syntax error, it has already been reported.
+	 */
+	private static class SyntaxError extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private SyntaxError() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.VariableAssignment;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the text and AST of a stylesheet in sync while the text is edited.
+ * An edit only re-parses the top-level variable assignments and style rules it touches
+ * and splices the new nodes into the existing Stylesheet.
+ * When that is not possible, e.g. because the edited text has syntax errors, the whole text is parsed again.
+ *
+ * The AST must not be transformed between edits, the Evaluator replaces nodes the regions refer to.
+ */
+public class IncrementalParser {
+
+	private final StringBuilder text = new StringBuilder();
+	private AST ast = new AST();
+	private final List<String> errors = new ArrayList<>();
+
+	//Start offset of the text of every top-level node, a region runs up to the start of the next one
+	private int[] regionStarts = new int[0];
+	//False when the last full parse had syntax errors, then the regions can not be trusted
+	private boolean regionsValid;
+	private int fullParses;
+
+	public AST getAST() {
+		return ast;
+	}
+
+	/**
+	 * @return the syntax errors of the current text, empty if it parsed
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	public String getText() {
+		return text.toString();
+	}
+
+	/**
+	 * @return the number of times the whole text was parsed, including the initial parse
+	 */
+	public int getFullParses() {
+		return fullParses;
+	}
+
+	/**
+	 * Parses the given text completely, replacing the current text and AST.
+	 * @param input the ICSS source
+	 */
+	public void parse(String input) {
+		text.setLength(0);
+		text.append(input);
+		fullParse();
+	}
+
+	/**
+	 * Replaces length characters at offset with replacement and updates the AST.
+	 * @param offset offset of the first replaced character
+	 * @param length number of replaced characters, 0 for an insert
+	 * @param replacement the new text, empty for a delete
+	 */
+	public void edit(int offset, int length, String replacement) {
+		if (offset < 0 || length < 0 || offset + length > text.length()) {
+			throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + length) + ") outside text of length " + text.length());
+		}
+		var end = offset + length;
+		var oldLength = text.length();
+		if (replacement.length() == length) {
+			//StringBuilder.replace moves the rest of the text even when nothing has to move
+			for (int i = 0; i < length; i++) {
+				text.setCharAt(offset + i, replacement.charAt(i));
+			}
+		} else {
+			text.replace(offset, end, replacement);
+		}
+
+		var count = regionStarts.length;
+		if (!regionsValid || count == 0) {
+			fullParse();
+			return;
+		}
+
+		//The characters around the edit are included, so tokens that merge across a region boundary are re-lexed
+		var first = Math.max(regionAt(offset - 1), 0);
+		var last = Math.max(regionAt(end), 0);
+		var windowStart = first == 0 ? 0 : regionStarts[first];
+		var windowEnd = last + 1 < count ? regionStarts[last + 1] : oldLength;
+		var delta = replacement.length() - length;
+
+		var window = new Window(text.substring(windowStart, windowEnd + delta));
+		if (!window.parse() || !fitsBetween(window.nodes, first - 1, last + 1)) {
+			fullParse();
+			return;
+		}
+
+		var body = ast.root.body;
+		if (window.nodes.size() == last - first + 1) {
+			//The common case, an edit inside one rule, does not move the other nodes
+			for (int i = 0; i < window.nodes.size(); i++) {
+				body.set(first + i, window.nodes.get(i));
+			}
+		} else {
+			body.subList(first, last + 1).clear();
+			body.addAll(first, window.nodes);
+		}
+		spliceRegions(first, last, windowStart, window.starts, delta);
+		errors.clear();
+	}
+
+	/**
+	 * @return index of the region containing position, or -1 if it lies before the first region
+	 */
+	private int regionAt(int position) {
+		var index = Arrays.binarySearch(regionStarts, position);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * The grammar puts all variable assignments before the style rules, a spliced window must keep that order.
+	 */
+	private boolean fitsBetween(List<ASTNode> nodes, int before, int after) {
+		var body = ast.root.body;
+		var previous = before >= 0 ? body.get(before) : null;
+		var next = after < body.size() ? body.get(after) : null;
+		if (nodes.isEmpty()) {
+			return !(previous instanceof Stylerule && next instanceof VariableAssignment);
+		}
+		return !(previous instanceof Stylerule && nodes.get(0) instanceof VariableAssignment)
+				&& !(nodes.get(nodes.size() - 1) instanceof Stylerule && next instanceof VariableAssignment);
+	}
+
+	private void spliceRegions(int first, int last, int windowStart, int[] windowStarts, int delta) {
+		var count = regionStarts.length;
+		var removed = last - first + 1;
+		var starts = windowStarts.length == removed ? regionStarts : new int[count - removed + windowStarts.length];
+		var tail = first + windowStarts.length;
+		if (starts != regionStarts) {
+			System.arraycopy(regionStarts, 0, starts, 0, first);
+			System.arraycopy(regionStarts, last + 1, starts, tail, count - last - 1);
+		}
+		for (int i = 0; i < windowStarts.length; i++) {
+			starts[first + i] = windowStart + windowStarts[i];
+		}
+		if (delta != 0) {
+			for (int i = tail; i < starts.length; i++) {
+				starts[i] += delta;
+			}
+		}
+		regionStarts = starts;
+	}
+
+	private void fullParse() {
+		fullParses++;
+		var window = new Window(text.toString());
+		window.parse();
+		ast = window.ast;
+		regionStarts = window.starts;
+		regionsValid = window.errors.isEmpty();
+		errors.clear();
+		errors.addAll(window.errors);
+	}
+
+	/**
+	 * A piece of the text parsed as a stylesheet on its own.
+	 */
+	private static class Window extends BaseErrorListener {
+		private final String input;
+		private final List<String> errors = new ArrayList<>();
+		private AST ast;
+		private List<ASTNode> nodes;
+		private int[] starts;
+
+		private Window(String input) {
+			this.input = input;
+		}
+
+		/**
+		 * @return true if the window parsed without syntax errors
+		 */
+		private boolean parse() {
+			var lexer = new ICSSLexer(CharStreams.fromString(input));
+			lexer.removeErrorListeners();
+			lexer.addErrorListener(this);
+			var parser = new ICSSParser(new CommonTokenStream(lexer));
+			parser.removeErrorListeners();
+			parser.addErrorListener(this);
+
+			var stylesheet = parser.stylesheet();
+			var listener = new ASTListener();
+			new ParseTreeWalker().walk(listener, stylesheet);
+			ast = listener.getAST();
+			nodes = ast.root.body;
+
+			var found = new int[stylesheet.getChildCount()];
+			var size = 0;
+			for (int i = 0; i < found.length; i++) {
+				var child = stylesheet.getChild(i);
+				if (child instanceof ICSSParser.VariableAssignmentContext || child instanceof ICSSParser.StyleRuleContext) {
+					found[size++] = ((ParserRuleContext) child).getStart().getStartIndex();
+				}
+			}
+			starts = Arrays.copyOf(found, size);
+			return errors.isEmpty() && size == nodes.size();
+		}
+
+		@Override
+		public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+								int charPositionInLine, String msg, RecognitionException e) {
+			errors.add("Syntax error: " + msg);
+		}
+	}
+}
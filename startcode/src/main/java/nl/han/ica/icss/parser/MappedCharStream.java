@@ -0,0 +1,162 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A CharStream that reads the lexer input straight from a memory-mapped file,
+ * so a large stylesheet is never copied into a String or char array.
+ * Every byte is one character, which is only right for ASCII: open() falls back to a decoding
+ * CharStream for files with other UTF-8 characters. Those can only be in syntax errors, the grammar is ASCII.
+ * It is also a CharSequence over the same bytes, for the DirectParser.
+ */
+public class MappedCharStream implements CharStream, CharSequence {
+
+	private final ByteBuffer bytes;
+	private final int size;
+	private final String name;
+	private int position;
+
+	/**
+	 * @param bytes ASCII characters, from position 0 up to the limit
+	 * @param name name of the source, used in error messages
+	 */
+	public MappedCharStream(ByteBuffer bytes, String name) {
+		this.bytes = bytes;
+		this.size = bytes.limit();
+		this.name = name;
+	}
+
+	/**
+	 * Opens a UTF-8 file as CharStream, mapped when the file is ASCII.
+	 * @param file the file to read
+	 * @return a MappedCharStream, or a decoded CharStream when the file has non-ASCII characters
+	 * @throws IOException when the file can not be read or is larger than 2 GB
+	 */
+	public static CharStream open(Path file) throws IOException {
+		ByteBuffer mapped;
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is larger than 2 GB");
+			}
+			//The mapping stays valid after the channel is closed
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (!isAscii(mapped)) {
+			return CharStreams.fromPath(file, StandardCharsets.UTF_8);
+		}
+		return new MappedCharStream(mapped, file.toString());
+	}
+
+	private static boolean isAscii(ByteBuffer bytes) {
+		var limit = bytes.limit();
+		var i = 0;
+		//Eight bytes at a time, the sign bit of every byte is set only for non-ASCII
+		for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+			if ((bytes.getLong(i) & 0x8080808080808080L) != 0) {
+				return false;
+			}
+		}
+		for (; i < limit; i++) {
+			if (bytes.get(i) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String getText(Interval interval) {
+		var start = Math.min(interval.a, size);
+		var length = Math.min(interval.b - interval.a + 1, size - start);
+		if (length <= 0) {
+			return "";
+		}
+		var text = new byte[length];
+		bytes.get(start, text);
+		return new String(text, StandardCharsets.ISO_8859_1);
+	}
+
+	@Override
+	public void consume() {
+		if (position >= size) {
+			throw new IllegalStateException("cannot consume EOF");
+		}
+		position++;
+	}
+
+	@Override
+	public int LA(int i) {
+		int offset;
+		if (i > 0) {
+			offset = position + i - 1;
+		} else if (i < 0) {
+			offset = position + i;
+		} else {
+			return 0;
+		}
+		if (offset < 0 || offset >= size) {
+			return IntStream.EOF;
+		}
+		return bytes.get(offset);
+	}
+
+	@Override
+	public int mark() {
+		//The whole input is always available
+		return -1;
+	}
+
+	@Override
+	public void release(int marker) {
+	}
+
+	@Override
+	public int index() {
+		return position;
+	}
+
+	@Override
+	public void seek(int index) {
+		position = index;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int length() {
+		return size;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) bytes.get(index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return getText(Interval.of(start, end - 1));
+	}
+
+	@Override
+	public String getSourceName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return getText(Interval.of(0, size - 1));
+	}
+}
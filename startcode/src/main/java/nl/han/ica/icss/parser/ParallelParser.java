@@ -0,0 +1,218 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.VariableAssignment;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Parses a large stylesheet on several cores. A pre-scan splits the text after top-level style rules,
+ * every chunk is parsed by its own ICSSParser and the nodes of the chunks are put back together in source order.
+ * The first chunk holds the global variable assignments, which the grammar only allows before the first style rule.
+ * Syntax errors have the same form as those of the Pipeline, so they can be compared with a sequential parse.
+ *
+ * When the text can not be split safely, because its braces do not balance or a variable assignment follows
+ * a style rule, it is parsed in one piece, so the errors are those of a sequential parse.
+ */
+public class ParallelParser {
+
+	//Chunks smaller than this are not worth a task of their own
+	private static final int MIN_CHUNK_SIZE = 64 * 1024;
+	//More chunks than threads, so a thread that finishes early can take another one
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final Executor executor;
+	private final int parallelism;
+	private final int minChunkSize;
+	private final List<String> errors = new ArrayList<>();
+	private int chunks;
+
+	/**
+	 * @param executor executor the chunks are parsed on
+	 * @param parallelism number of threads of the executor
+	 */
+	public ParallelParser(Executor executor, int parallelism) {
+		this(executor, parallelism, MIN_CHUNK_SIZE);
+	}
+
+	ParallelParser(Executor executor, int parallelism, int minChunkSize) {
+		this.executor = executor;
+		this.parallelism = Math.max(parallelism, 1);
+		this.minChunkSize = minChunkSize;
+	}
+
+	/**
+	 * @return the syntax errors of the last parse in source order, empty if it parsed
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return the number of chunks the last parse was split into, 1 if it was parsed in one piece
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * Parses the input.
+	 * @param input the ICSS source
+	 * @return the AST of the whole input
+	 */
+	public AST parse(String input) {
+		errors.clear();
+		var parts = split(input, Math.max(minChunkSize, input.length() / (parallelism * CHUNKS_PER_THREAD)));
+		if (parts == null || parts.size() == 1) {
+			return parseWhole(input);
+		}
+
+		var futures = new ArrayList<CompletableFuture<Chunk>>(parts.size());
+		for (var part : parts) {
+			futures.add(CompletableFuture.supplyAsync(() -> part.parse(input), executor));
+		}
+		var ast = new AST();
+		for (int i = 0; i < futures.size(); i++) {
+			var chunk = join(futures.get(i));
+			//Only the first chunk may hold variable assignments, anywhere else they are an error the chunk can not see
+			if (i > 0 && chunk.ast.root.body.stream().anyMatch(node -> node instanceof VariableAssignment)) {
+				//Chunks that did not start yet are not parsed, running ones finish on their own
+				for (var future : futures.subList(i + 1, futures.size())) {
+					future.cancel(false);
+				}
+				return parseWhole(input);
+			}
+			ast.root.body.addAll(chunk.ast.root.body);
+			errors.addAll(chunk.errors);
+		}
+		chunks = parts.size();
+		return ast;
+	}
+
+	private AST parseWhole(String input) {
+		var chunk = new Chunk(0, input.length()).parse(input);
+		//Replaces the errors of the chunks that were joined before the text turned out not to be splittable
+		errors.clear();
+		errors.addAll(chunk.errors);
+		chunks = 1;
+		return chunk.ast;
+	}
+
+	private static Chunk join(CompletableFuture<Chunk> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Splits the text after the closing brace of a top-level style rule, once a chunk has at least targetSize characters.
+	 * No ICSS token contains a brace, so counting the brace characters finds the rule boundaries.
+	 * @return the chunks, or null when the braces do not balance
+	 */
+	static List<Chunk> split(CharSequence input, int targetSize) {
+		var parts = new ArrayList<Chunk>();
+		var length = input.length();
+		var depth = 0;
+		var chunkStart = 0;
+		//Whether the text since the last split has a style rule
+		var hasRule = false;
+		for (int i = 0; i < length; i++) {
+			var c = input.charAt(i);
+			if (c == '{') {
+				depth++;
+				hasRule = true;
+			} else if (c == '}') {
+				depth--;
+				if (depth < 0) {
+					return null;
+				}
+				if (depth == 0 && i + 1 - chunkStart >= targetSize) {
+					parts.add(new Chunk(chunkStart, i + 1));
+					chunkStart = i + 1;
+					hasRule = false;
+				}
+			}
+		}
+		if (depth != 0) {
+			return null;
+		}
+		if (parts.isEmpty()) {
+			parts.add(new Chunk(0, length));
+		} else if (chunkStart < length) {
+			//Text after the last split without a style rule, usually only whitespace, goes with the last chunk
+			var last = parts.get(parts.size() - 1);
+			if (hasRule) {
+				parts.add(new Chunk(chunkStart, length));
+			} else {
+				parts.set(parts.size() - 1, new Chunk(last.start, length));
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * A piece of the text, parsed as a stylesheet of its own.
+	 */
+	static class Chunk extends BaseErrorListener {
+		final int start;
+		final int end;
+		private final List<String> errors = new ArrayList<>();
+		private AST ast;
+
+		Chunk(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Parses with SLL prediction first and only on an error again with full LL prediction, like the Pipeline.
+		 */
+		private Chunk parse(String input) {
+			var lexer = new ICSSLexer(CharStreams.fromString(input.substring(start, end)));
+			lexer.removeErrorListeners();
+			lexer.addErrorListener(this);
+			var tokens = new CommonTokenStream(lexer);
+			var parser = new ICSSParser(tokens);
+			parser.removeErrorListeners();
+			parser.setBuildParseTree(false);
+			parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+			parser.setErrorHandler(new BailErrorStrategy());
+			var builder = new ASTBuilder();
+			parser.addParseListener(builder);
+			try {
+				parser.stylesheet();
+			} catch (ParseCancellationException e) {
+				tokens.seek(0);
+				parser.reset();
+				parser.removeParseListeners();
+				builder = new ASTBuilder();
+				parser.addParseListener(builder);
+				parser.addErrorListener(this);
+				parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+				parser.setErrorHandler(new DefaultErrorStrategy());
+				parser.stylesheet();
+			}
+			ast = builder.getAST();
+			return this;
+		}
+
+		@Override
+		public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+								int charPositionInLine, String msg, RecognitionException e) {
+			//The same form as the errors of the Pipeline
+			errors.add("Syntax error: " + msg);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.Token;
+
+import java.util.List;
+
+/**
+ * Splits ICSS text into the tokens of ICSSLexer, one token at a time and without creating Token objects.
+ * The current token is described by its type, its offsets in the input and, for numbers, its value.
+ * Like the ANTLR lexer it takes the longest match and, for matches of equal length, the rule first in the grammar.
+ */
+class TokenScanner {
+
+	private final CharSequence input;
+	private final int length;
+	private final List<String> errors;
+	private int position;
+
+	//The current token, the type is one of the ICSSLexer token types or Token.EOF
+	int type;
+	int start;
+	int end;
+	//Value of a PIXELSIZE, PERCENTAGE or SCALAR token
+	int value;
+
+	/**
+	 * @param input the ICSS source
+	 * @param errors receives an error for every character that does not start a token
+	 */
+	TokenScanner(CharSequence input, List<String> errors) {
+		this.input = input;
+		this.length = input.length();
+		this.errors = errors;
+	}
+
+	/**
+	 * @return the text of the current token
+	 */
+	String text() {
+		return input.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Moves back to the start of the input, the next call of next reads the first token again.
+	 */
+	void reset() {
+		position = 0;
+	}
+
+	/**
+	 * Moves to the next token, characters that do not start a token are reported and skipped.
+	 */
+	void next() {
+		while (true) {
+			while (position < length && isWhitespace(input.charAt(position))) {
+				position++;
+			}
+			start = position;
+			if (position >= length) {
+				type = Token.EOF;
+				end = position;
+				return;
+			}
+			if (scan(input.charAt(position))) {
+				position = end;
+				return;
+			}
+			errors.add("Syntax error: " + location(start) + " token recognition error at: '" + input.charAt(start) + "'");
+			position = start + 1;
+		}
+	}
+
+	/**
+	 * @return "line l:c" of the character at offset, lines count from 1 and columns from 0 as in ANTLR's messages
+	 */
+	String location(int offset) {
+		var line = 1;
+		var lineStart = 0;
+		for (int i = 0; i < offset && i < length; i++) {
+			if (input.charAt(i) == '\n') {
+				line++;
+				lineStart = i + 1;
+			}
+		}
+		return "line " + line + ":" + (offset - lineStart);
+	}
+
+	private boolean scan(char c) {
+		switch (c) {
+			case '{':
+				return single(ICSSLexer.OPEN_BRACE);
+			case '}':
+				return single(ICSSLexer.CLOSE_BRACE);
+			case '[':
+				return single(ICSSLexer.BOX_BRACKET_OPEN);
+			case ']':
+				return single(ICSSLexer.BOX_BRACKET_CLOSE);
+			case ';':
+				return single(ICSSLexer.SEMICOLON);
+			case '+':
+				return single(ICSSLexer.PLUS);
+			case '-':
+				return single(ICSSLexer.MIN);
+			case '*':
+				return single(ICSSLexer.MUL);
+			case ':':
+				if (charAt(start + 1) == '=') {
+					type = ICSSLexer.ASSIGNMENT_OPERATOR;
+					end = start + 2;
+					return true;
+				}
+				return single(ICSSLexer.COLON);
+			case '#':
+				return scanHash();
+			case '.':
+				end = identEnd(start + 1);
+				type = ICSSLexer.CLASS_IDENT;
+				return end > start + 1;
+			default:
+				if (c >= '0' && c <= '9') {
+					return scanNumber();
+				}
+				if (c >= 'a' && c <= 'z') {
+					end = identEnd(start + 1);
+					type = is("if") ? ICSSLexer.IF : is("else") ? ICSSLexer.ELSE : ICSSLexer.LOWER_IDENT;
+					return true;
+				}
+				if (c >= 'A' && c <= 'Z') {
+					end = start + 1;
+					while (end < length && isCapitalIdentPart(input.charAt(end))) {
+						end++;
+					}
+					type = is("TRUE") ? ICSSLexer.TRUE : is("FALSE") ? ICSSLexer.FALSE : ICSSLexer.CAPITAL_IDENT;
+					return true;
+				}
+				return false;
+		}
+	}
+
+	private boolean single(int tokenType) {
+		type = tokenType;
+		end = start + 1;
+		return true;
+	}
+
+	/**
+	 * A COLOR is exactly six hex digits, anything longer or with other characters is an ID_IDENT.
+	 */
+	private boolean scanHash() {
+		end = identEnd(start + 1);
+		if (end == start + 1) {
+			return false;
+		}
+		type = ICSSLexer.ID_IDENT;
+		if (end == start + 7) {
+			var hex = true;
+			for (int i = start + 1; i < end; i++) {
+				var c = input.charAt(i);
+				hex &= c >= '0' && c <= '9' || c >= 'a' && c <= 'f';
+			}
+			if (hex) {
+				type = ICSSLexer.COLOR;
+			}
+		}
+		return true;
+	}
+
+	private boolean scanNumber() {
+		end = start;
+		value = 0;
+		var overflow = false;
+		while (end < length && input.charAt(end) >= '0' && input.charAt(end) <= '9') {
+			var digit = input.charAt(end) - '0';
+			overflow |= value > (Integer.MAX_VALUE - digit) / 10;
+			value = value * 10 + digit;
+			end++;
+		}
+		if (charAt(end) == 'p' && charAt(end + 1) == 'x') {
+			type = ICSSLexer.PIXELSIZE;
+			end += 2;
+		} else if (charAt(end) == '%') {
+			type = ICSSLexer.PERCENTAGE;
+			end++;
+		} else {
+			type = ICSSLexer.SCALAR;
+		}
+		if (overflow) {
+			errors.add("Syntax error: " + location(start) + " value out of range: " + text());
+			value = 0;
+		}
+		return true;
+	}
+
+	private int identEnd(int from) {
+		var i = from;
+		while (i < length && isLowerIdentPart(input.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private boolean is(String keyword) {
+		if (end - start != keyword.length()) {
+			return false;
+		}
+		for (int i = 0; i < keyword.length(); i++) {
+			if (input.charAt(start + i) != keyword.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private char charAt(int index) {
+		return index < length ? input.charAt(index) : 0;
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	private static boolean isLowerIdentPart(char c) {
+		return c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-';
+	}
+
+	private static boolean isCapitalIdentPart(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+	}
+}
@@ -0,0 +1,426 @@
+package nl.han.ica.icss.template;
+
+import nl.han.ica.datastructures.IHANScope;
+import nl.han.ica.datastructures.MyHanScope;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.TypeRules;
+
+import java.util.*;
+
+/**
+ * A checked stylesheet compiled once into a tree of closures, to render it many times with different values
+ * for its global variables, e.g. one stylesheet per brand theme.
+ * Every variable assignment gets a slot in an array, so rendering does not walk the AST or look up scopes,
+ * and numeric expressions are calculated on ints without creating intermediate literals.
+ * Rendering gives the same CSS as transforming and generating the AST with the given values assigned to the globals.
+ *
+ * A template is immutable and can be rendered from several threads at the same time.
+ */
+public final class StylesheetTemplate {
+    private final Map<String, Variable> variables;
+    private final Statement[] statements;
+    private final int slotCount;
+
+    private StylesheetTemplate(Map<String, Variable> variables, Statement[] statements, int slotCount) {
+        this.variables = variables;
+        this.statements = statements;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Checks and compiles a parsed AST. The AST is not changed, apart from the errors set by the Checker.
+     * @param ast the parsed stylesheet
+     * @return the template
+     * @throws IllegalArgumentException when the stylesheet has semantic errors
+     */
+    public static StylesheetTemplate compile(AST ast) {
+        ast.clearErrors();
+        new Checker().check(ast);
+        var errors = ast.getErrors();
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Stylesheet has errors: " + errors);
+        }
+        return new TemplateCompiler().compile(ast);
+    }
+
+    /**
+     * @return the global variables that can be given a value, with their types, in order of declaration
+     */
+    public Map<String, ExpressionType> getVariables() {
+        var types = new LinkedHashMap<String, ExpressionType>();
+        variables.forEach((name, variable) -> types.put(name, variable.type));
+        return types;
+    }
+
+    /**
+     * Renders the stylesheet with the declared values of the global variables.
+     * @return the CSS
+     */
+    public String render() {
+        return render(Map.of());
+    }
+
+    /**
+     * Renders the stylesheet with the given values for global variables.
+     * A given value replaces every assignment to that variable, the other variables keep their declared value.
+     * @param values values of global variables by name
+     * @return the CSS
+     * @throws IllegalArgumentException when a value is given for an unknown variable, or has another type
+     */
+    public String render(Map<String, ? extends Literal> values) {
+        var out = new StringBuilder();
+        render(values, out);
+        return out.toString();
+    }
+
+    /**
+     * Renders the stylesheet with the given values for global variables to out.
+     * @param values values of global variables by name
+     * @param out the destination of the CSS
+     * @throws IllegalArgumentException when a value is given for an unknown variable, or has another type
+     */
+    public void render(Map<String, ? extends Literal> values, StringBuilder out) {
+        var frame = new Frame(new Literal[slotCount], inputs(values), out);
+        for (var statement : statements) {
+            statement.execute(frame);
+        }
+    }
+
+    /**
+     * Checks values for the global variables without rendering.
+     * @param values values of global variables by name
+     * @throws IllegalArgumentException when a value is given for an unknown variable, or has another type
+     */
+    public void checkValues(Map<String, ? extends Literal> values) {
+        inputs(values);
+    }
+
+    private Literal[] inputs(Map<String, ? extends Literal> values) {
+        var inputs = new Literal[variables.size()];
+        for (var entry : values.entrySet()) {
+            var variable = variables.get(entry.getKey());
+            if (variable == null) {
+                throw new IllegalArgumentException("Unknown variable: " + entry.getKey());
+            }
+            var value = entry.getValue();
+            if (TypeRules.getLiteralType(value) != variable.type) {
+                throw new IllegalArgumentException("Variable " + entry.getKey() + " must be " + variable.type + ", not " + value.getNodeLabel());
+            }
+            inputs[variable.input] = value;
+        }
+        return inputs;
+    }
+
+    /**
+     * A global variable of the template.
+     */
+    private static final class Variable {
+        private final int input;
+        private final ExpressionType type;
+
+        private Variable(int input, ExpressionType type) {
+            this.input = input;
+            this.type = type;
+        }
+    }
+
+    /**
+     * State of one render.
+     */
+    private static final class Frame {
+        private final Literal[] slots;
+        private final Literal[] inputs;
+        private final StringBuilder out;
+        //Rules are separated by a blank line, like the Generator does
+        private boolean firstRule = true;
+
+        private Frame(Literal[] slots, Literal[] inputs, StringBuilder out) {
+            this.slots = slots;
+            this.inputs = inputs;
+            this.out = out;
+        }
+    }
+
+    private interface Statement {
+        void execute(Frame frame);
+    }
+
+    private abstract static class Expr {
+        final ExpressionType type;
+
+        Expr(ExpressionType type) {
+            this.type = type;
+        }
+
+        abstract Literal evaluate(Frame frame);
+
+        /**
+         * @return the value of a numeric expression
+         */
+        int intValue(Frame frame) {
+            return intOf(evaluate(frame));
+        }
+
+        /**
+         * Appends the value as CSS, see Generator.
+         */
+        void appendTo(Frame frame) {
+            if (type == ExpressionType.PIXEL) {
+                frame.out.append(intValue(frame)).append("px");
+            } else if (type == ExpressionType.PERCENTAGE) {
+                frame.out.append(intValue(frame)).append('%');
+            } else {
+                frame.out.append(((ColorLiteral) evaluate(frame)).value);
+            }
+        }
+    }
+
+    private static int intOf(Literal literal) {
+        if (literal instanceof PixelLiteral) return ((PixelLiteral) literal).value;
+        if (literal instanceof PercentageLiteral) return ((PercentageLiteral) literal).value;
+        return ((ScalarLiteral) literal).value;
+    }
+
+    private static Literal literalOf(ExpressionType type, int value) {
+        if (type == ExpressionType.PIXEL) return PixelLiteral.of(value);
+        if (type == ExpressionType.PERCENTAGE) return PercentageLiteral.of(value);
+        return ScalarLiteral.of(value);
+    }
+
+    private static final class Constant extends Expr {
+        private final Literal value;
+        private final int intValue;
+
+        private Constant(Literal value) {
+            super(TypeRules.getLiteralType(value));
+            this.value = value;
+            this.intValue = type == ExpressionType.PIXEL || type == ExpressionType.PERCENTAGE || type == ExpressionType.SCALAR
+                    ? intOf(value) : 0;
+        }
+
+        @Override
+        Literal evaluate(Frame frame) {
+            return value;
+        }
+
+        @Override
+        int intValue(Frame frame) {
+            return intValue;
+        }
+    }
+
+    private static final class SlotRead extends Expr {
+        private final int slot;
+
+        private SlotRead(int slot, ExpressionType type) {
+            super(type);
+            this.slot = slot;
+        }
+
+        @Override
+        Literal evaluate(Frame frame) {
+            return frame.slots[slot];
+        }
+    }
+
+    private static final class Arithmetic extends Expr {
+        private final char operator;
+        private final Expr left;
+        private final Expr right;
+
+        private Arithmetic(char operator, Expr left, Expr right, ExpressionType type) {
+            super(type);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Literal evaluate(Frame frame) {
+            return literalOf(type, intValue(frame));
+        }
+
+        @Override
+        int intValue(Frame frame) {
+            var leftValue = left.intValue(frame);
+            var rightValue = right.intValue(frame);
+            switch (operator) {
+                case '+':
+                    return leftValue + rightValue;
+                case '-':
+                    return leftValue - rightValue;
+                default:
+                    return leftValue * rightValue;
+            }
+        }
+    }
+
+    private static final class Assign implements Statement {
+        private final int slot;
+        private final Expr expression;
+        //Index of the input that replaces the expression, -1 for variables in rules
+        private final int input;
+
+        private Assign(int slot, Expr expression, int input) {
+            this.slot = slot;
+            this.expression = expression;
+            this.input = input;
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            var value = input >= 0 ? frame.inputs[input] : null;
+            frame.slots[slot] = value != null ? value : expression.evaluate(frame);
+        }
+    }
+
+    private static final class Emit implements Statement {
+        //"  property: ", so a declaration costs one append before the value
+        private final String prefix;
+        private final Expr expression;
+
+        private Emit(String property, Expr expression) {
+            this.prefix = "  " + property + ": ";
+            this.expression = expression;
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            frame.out.append(prefix);
+            expression.appendTo(frame);
+            frame.out.append(";\n");
+        }
+    }
+
+    private static final class Branch implements Statement {
+        private final Expr condition;
+        private final Statement[] body;
+        private final Statement[] elseBody;
+
+        private Branch(Expr condition, Statement[] body, Statement[] elseBody) {
+            this.condition = condition;
+            this.body = body;
+            this.elseBody = elseBody;
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            var chosen = ((BoolLiteral) condition.evaluate(frame)).value ? body : elseBody;
+            for (var statement : chosen) {
+                statement.execute(frame);
+            }
+        }
+    }
+
+    private static final class Rule implements Statement {
+        private final String header;
+        private final Statement[] body;
+
+        private Rule(String selector, Statement[] body) {
+            this.header = selector + " {\n";
+            this.body = body;
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            if (!frame.firstRule) frame.out.append("\n\n");
+            frame.firstRule = false;
+            frame.out.append(header);
+            for (var statement : body) {
+                statement.execute(frame);
+            }
+            frame.out.append('}');
+        }
+    }
+
+    /**
+     * Translates a checked AST into statements, resolving every variable reference to a slot.
+     */
+    private static final class TemplateCompiler {
+        private final Map<String, Variable> variables = new LinkedHashMap<>();
+        private int slotCount;
+
+        private StylesheetTemplate compile(AST ast) {
+            var globals = new MyHanScope<SlotRead>();
+            var statements = new ArrayList<Statement>();
+            for (var child : ast.root.body) {
+                if (child instanceof VariableAssignment) {
+                    var assignment = (VariableAssignment) child;
+                    var expression = compileExpression(assignment.expression, globals);
+                    var variable = variables.computeIfAbsent(assignment.name.name,
+                            name -> new Variable(variables.size(), expression.type));
+                    if (variable.type != expression.type) {
+                        //Reassigned with another type, no single input value can replace every assignment
+                        variable = new Variable(variable.input, ExpressionType.UNDEFINED);
+                        variables.put(assignment.name.name, variable);
+                    }
+                    statements.add(assign(assignment, expression, variable.input, globals));
+                }
+
+                if (child instanceof Stylerule) {
+                    var stylerule = (Stylerule) child;
+                    var body = compileBody(stylerule.body, globals.createChild());
+                    statements.add(new Rule(stylerule.selectors.get(0).toString(), body));
+                }
+            }
+            return new StylesheetTemplate(Collections.unmodifiableMap(variables), statements.toArray(new Statement[0]), slotCount);
+        }
+
+        private Statement[] compileBody(List<ASTNode> body, IHANScope<SlotRead> scope) {
+            var statements = new ArrayList<Statement>();
+            for (var child : body) {
+                if (child instanceof VariableAssignment) {
+                    var assignment = (VariableAssignment) child;
+                    statements.add(assign(assignment, compileExpression(assignment.expression, scope), -1, scope));
+                }
+
+                if (child instanceof Declaration) {
+                    var declaration = (Declaration) child;
+                    statements.add(new Emit(declaration.property.name, compileExpression(declaration.expression, scope)));
+                }
+
+                if (child instanceof IfClause) {
+                    var ifClause = (IfClause) child;
+                    var condition = compileExpression(ifClause.conditionalExpression, scope);
+                    var elseBody = ifClause.elseClause == null ? new Statement[0]
+                            : compileBody(ifClause.elseClause.body, scope.createChild());
+                    statements.add(new Branch(condition, compileBody(ifClause.body, scope.createChild()), elseBody));
+                }
+            }
+            return statements.toArray(new Statement[0]);
+        }
+
+        /**
+         * Every assignment gets its own slot, like the Evaluator the expression is compiled before the name is declared.
+         */
+        private Statement assign(VariableAssignment assignment, Expr expression, int input, IHANScope<SlotRead> scope) {
+            var slot = slotCount++;
+            scope.declare(assignment.name.name, new SlotRead(slot, expression.type));
+            return new Assign(slot, expression, input);
+        }
+
+        private Expr compileExpression(Expression expression, IHANScope<SlotRead> scope) {
+            if (expression instanceof Literal) {
+                return new Constant((Literal) expression);
+            }
+            if (expression instanceof VariableReference) {
+                return scope.lookup(((VariableReference) expression).name);
+            }
+            var operation = (Operation) expression;
+            var left = compileExpression(operation.lhs, scope);
+            var right = compileExpression(operation.rhs, scope);
+            var type = TypeRules.getOperationType(operation, left.type, right.type);
+            var operator = operation instanceof AddOperation ? '+' : operation instanceof MultiplyOperation ? '*' : '-';
+            if (left instanceof Constant && right instanceof Constant) {
+                //Folded once here instead of on every render
+                return new Constant(literalOf(type, new Arithmetic(operator, left, right, type).intValue(null)));
+            }
+            return new Arithmetic(operator, left, right, type);
+        }
+    }
+}
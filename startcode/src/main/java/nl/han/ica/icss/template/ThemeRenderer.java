@@ -0,0 +1,156 @@
+package nl.han.ica.icss.template;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.parser.ICSSLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.function.Consumer;
+
+/**
+ * Renders one ICSS stylesheet for many sets of global variable values, e.g. one per brand theme.
+ * The stylesheet is parsed and checked once, every theme is rendered from the same StylesheetTemplate,
+ * with the semantics of the Evaluator: a value replaces the assignments of its global variable
+ * and the if/else branches are chosen with the resulting values.
+ * A ThemeRenderer is immutable and can be shared between threads.
+ */
+public class ThemeRenderer {
+    private final StylesheetTemplate template;
+
+    public ThemeRenderer(StylesheetTemplate template) {
+        this.template = template;
+    }
+
+    /**
+     * Parses and checks a stylesheet.
+     * @param input the ICSS source
+     * @return a renderer for the stylesheet
+     * @throws IllegalArgumentException when the stylesheet has syntax or semantic errors
+     */
+    public static ThemeRenderer of(String input) {
+        var pipeline = new Pipeline();
+        pipeline.parseString(input);
+        if (!pipeline.isParsed()) {
+            throw new IllegalArgumentException("Stylesheet has errors: " + pipeline.getErrors());
+        }
+        return new ThemeRenderer(StylesheetTemplate.compile(pipeline.getAST()));
+    }
+
+    /**
+     * Parses the text of a single literal, e.g. 10px, 50%, 3, #ff0000 or TRUE.
+     * @param text the literal as written in ICSS
+     * @return the literal
+     * @throws IllegalArgumentException when text is not a single literal
+     */
+    public static Literal parseValue(String text) {
+        var value = text.strip();
+        var lexer = new ICSSLexer(CharStreams.fromString(value));
+        //Characters the lexer does not recognize are skipped without printing them, then the token does not cover the value
+        lexer.removeErrorListeners();
+        var tokens = lexer.getAllTokens();
+        if (tokens.size() == 1 && tokens.get(0).getText().length() == value.length()) {
+            var token = tokens.get(0);
+            switch (token.getType()) {
+                case ICSSLexer.PIXELSIZE:
+                    return PixelLiteral.parse(token.getText());
+                case ICSSLexer.PERCENTAGE:
+                    return PercentageLiteral.parse(token.getText());
+                case ICSSLexer.SCALAR:
+                    return ScalarLiteral.parse(token.getText());
+                case ICSSLexer.COLOR:
+                    return ColorLiteral.of(token.getText());
+                case ICSSLexer.TRUE:
+                case ICSSLexer.FALSE:
+                    return BoolLiteral.parse(token.getText());
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Not a literal: " + text);
+    }
+
+    public StylesheetTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Renders every theme on the executor.
+     * @param themes values of global variables per theme
+     * @param executor executor the themes are rendered on
+     * @return a future per theme, in the order of themes
+     * @throws IllegalArgumentException when a theme has a value for an unknown variable or of another type,
+     * nothing is rendered then
+     */
+    public List<CompletableFuture<RenderedTheme>> renderAsync(List<? extends Map<String, ? extends Literal>> themes, Executor executor) {
+        themes.forEach(template::checkValues);
+        var futures = new ArrayList<CompletableFuture<RenderedTheme>>(themes.size());
+        for (int i = 0; i < themes.size(); i++) {
+            var index = i;
+            var values = themes.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> new RenderedTheme(index, template.render(values)), executor));
+        }
+        return futures;
+    }
+
+    /**
+     * Renders every theme on the executor and passes each result to consumer as soon as it is rendered,
+     * so results arrive in order of completion. The consumer is called on the calling thread,
+     * this method returns when every theme was passed.
+     * @param themes values of global variables per theme
+     * @param executor executor the themes are rendered on
+     * @param consumer receives every rendered theme
+     * @throws IllegalArgumentException when a theme has a value for an unknown variable or of another type,
+     * nothing is rendered then
+     * @throws InterruptedException when the calling thread is interrupted while waiting
+     */
+    public void renderEach(List<? extends Map<String, ? extends Literal>> themes, Executor executor,
+                           Consumer<RenderedTheme> consumer) throws InterruptedException {
+        themes.forEach(template::checkValues);
+        var completion = new ExecutorCompletionService<RenderedTheme>(executor);
+        for (int i = 0; i < themes.size(); i++) {
+            var index = i;
+            var values = themes.get(i);
+            completion.submit(() -> new RenderedTheme(index, template.render(values)));
+        }
+        for (int i = 0; i < themes.size(); i++) {
+            try {
+                consumer.accept(completion.take().get());
+            } catch (ExecutionException e) {
+                //The values were checked, so only an unexpected failure ends up here
+                throw new IllegalStateException("Rendering a theme failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The CSS of one theme.
+     */
+    public static class RenderedTheme {
+        private final int index;
+        private final String css;
+
+        RenderedTheme(int index, String css) {
+            this.index = index;
+            this.css = css;
+        }
+
+        /**
+         * @return position of the theme in the list of themes
+         */
+        public int getIndex() {
+            return index;
+        }
+        public String getCss() {
+            return css;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package nl.han.ica.icss.trace;
+
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+/**
+ * Receives events from the compiler stages, for debugging.
+ * All methods do nothing by default; the stages pass existing objects only,
+ * so with NONE tracing costs nothing. Implementations used by a shared IcssCompiler must be thread-safe.
+ */
+public interface CompileTrace {
+
+    /**
+     * Trace that ignores every event, used when tracing is off.
+     */
+    CompileTrace NONE = new CompileTrace() { };
+
+    /**
+     * The Checker determined the type of an operation.
+     * @param operation the checked Operation
+     * @param left type of the left operand
+     * @param right type of the right operand
+     * @param result type of the operation, UNDEFINED when the operation has an error
+     */
+    default void operationChecked(Operation operation, ExpressionType left, ExpressionType right, ExpressionType result) {
+    }
+
+    /**
+     * The Evaluator folded an operation into a literal.
+     * @param operation the evaluated Operation
+     * @param left value of the left operand
+     * @param right value of the right operand
+     * @param result the resulting literal
+     */
+    default void operationEvaluated(Operation operation, Literal left, Literal right, Literal result) {
+    }
+
+    /**
+     * A stage met a node it does not support, or could not resolve.
+     * @param stage the name of the stage
+     * @param node the node, may be null
+     */
+    default void unsupportedNode(String stage, ASTNode node) {
+    }
+}
@@ -0,0 +1,38 @@
+package nl.han.ica.icss.trace;
+
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.io.PrintStream;
+
+/**
+ * Writes every trace event as a line to a PrintStream, e.g. System.out.
+ */
+public class PrintStreamTrace implements CompileTrace {
+    private final PrintStream out;
+
+    public PrintStreamTrace(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void operationChecked(Operation operation, ExpressionType left, ExpressionType right, ExpressionType result) {
+        out.println("check " + operation.getNodeLabel() + " " + left + ", " + right + " -> " + result);
+    }
+
+    @Override
+    public void operationEvaluated(Operation operation, Literal left, Literal right, Literal result) {
+        out.println("evaluate " + operation.getNodeLabel() + " " + label(left) + ", " + label(right) + " -> " + label(result));
+    }
+
+    @Override
+    public void unsupportedNode(String stage, ASTNode node) {
+        out.println(stage + ": unsupported " + (node == null ? "null" : node.getNodeLabel()));
+    }
+
+    private static String label(ASTNode node) {
+        return node == null ? "null" : node.getNodeLabel();
+    }
+}
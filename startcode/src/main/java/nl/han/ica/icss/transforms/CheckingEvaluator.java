@@ -0,0 +1,199 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.datastructures.IHANScope;
+import nl.han.ica.datastructures.MyHanScope;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.TypeRules;
+import nl.han.ica.icss.trace.CompileTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks and evaluates an AST in a single walk, instead of a walk by the Checker followed by one of the Evaluator.
+ * Both branches of every IfClause are checked, only the chosen branch is evaluated.
+ * Like the Evaluator, evaluated rule bodies are built from new Declarations and the nodes inside them are not changed.
+ * Replacing the rule bodies and the values of the global variables is deferred until the walk found no errors,
+ * so the result is the same as running the Checker and, if it passed, the Evaluator.
+ */
+public class CheckingEvaluator implements Transform {
+    private final CompileTrace trace;
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+    private boolean failed;
+
+    public CheckingEvaluator() {
+        this(CompileTrace.NONE);
+    }
+
+    public CheckingEvaluator(CompileTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Checks and evaluates the given AST.
+     * @param ast the AST to check and evaluate, it is left unchanged when errors are found
+     */
+    @Override
+    public void apply(AST ast) {
+        pendingChanges.clear();
+        failed = false;
+        var globalVariables = new MyHanScope<Binding>();
+        for (var child : ast.root.body) {
+            if (child instanceof VariableAssignment) {
+                var variableAssignment = (VariableAssignment) child;
+                var binding = applyVariableAssignment(variableAssignment, globalVariables, true);
+                pendingChanges.add(() -> variableAssignment.expression = binding.value);
+            }
+
+            if (child instanceof Stylerule) {
+                var stylerule = (Stylerule) child;
+                var body = applyRuleBody(stylerule.body, globalVariables.createChild(), true);
+                pendingChanges.add(() -> stylerule.body = body);
+            }
+        }
+
+        if (!failed) {
+            for (var change : pendingChanges) {
+                change.run();
+            }
+        }
+        pendingChanges.clear();
+    }
+
+    /**
+     * @return true if the last applied AST contained errors, in which case it was left unchanged
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    private ArrayList<ASTNode> applyRuleBody(ArrayList<ASTNode> body, IHANScope<Binding> scopeVars, boolean live) {
+        var temp = new ArrayList<ASTNode>();
+        for (var child : body) {
+            if (child instanceof VariableAssignment) {
+                applyVariableAssignment((VariableAssignment) child, scopeVars, live);
+            }
+
+            if (child instanceof Declaration) {
+                var declaration = applyDeclaration((Declaration) child, scopeVars, live);
+                if (declaration != null) temp.add(declaration);
+            }
+
+            if (child instanceof IfClause) {
+                temp.addAll(applyIfClause((IfClause) child, scopeVars, live));
+            }
+        }
+        return temp;
+    }
+
+    private Binding applyVariableAssignment(VariableAssignment variableAssignment, IHANScope<Binding> scopeVars, boolean live) {
+        var binding = applyExpression(variableAssignment.expression, scopeVars, live);
+        scopeVars.declare(variableAssignment.name.name, binding);
+        return binding;
+    }
+
+    /**
+     * @return a new Declaration with the evaluated value, or null when the declaration is not evaluated
+     */
+    private Declaration applyDeclaration(Declaration declaration, IHANScope<Binding> scopeVars, boolean live) {
+        var binding = applyExpression(declaration.expression, scopeVars, live);
+        TypeRules.checkDeclaration(declaration, binding.type);
+        track(declaration);
+        if (!live) return null;
+        var transformed = new Declaration();
+        transformed.property = declaration.property;
+        transformed.expression = binding.value;
+        return transformed;
+    }
+
+    /**
+     * Checks both branches of an IfClause, only the branch chosen by the condition is evaluated.
+     * @return the evaluated declarations of the chosen branch, empty when the IfClause is not evaluated
+     */
+    private ArrayList<ASTNode> applyIfClause(IfClause ifClause, IHANScope<Binding> scopeVars, boolean live) {
+        var condition = applyExpression(ifClause.conditionalExpression, scopeVars, live);
+        if (ifClause.conditionalExpression instanceof VariableReference) {
+            var reference = (VariableReference) ifClause.conditionalExpression;
+            TypeRules.checkCondition(ifClause, reference, condition.type);
+            track(ifClause);
+        }
+
+        var taken = live && condition.value instanceof BoolLiteral && ((BoolLiteral) condition.value).value;
+        var elseTaken = live && condition.value instanceof BoolLiteral && !taken;
+
+        ArrayList<ASTNode> elseResult = null;
+        if (ifClause.elseClause != null) {
+            elseResult = applyRuleBody(ifClause.elseClause.body, scopeVars.createChild(), elseTaken);
+        }
+        var ifResult = applyRuleBody(ifClause.body, scopeVars.createChild(), taken);
+
+        if (taken) return ifResult;
+        return elseResult == null ? new ArrayList<>() : elseResult;
+    }
+
+    private Binding applyExpression(Expression expression, IHANScope<Binding> scopeVars, boolean live) {
+        if (expression instanceof Literal) {
+            var literal = (Literal) expression;
+            return new Binding(TypeRules.getLiteralType(literal), live ? literal : null);
+        }
+
+        if (expression instanceof VariableReference) {
+            return applyVarReference((VariableReference) expression, scopeVars, live);
+        }
+
+        if (expression instanceof Operation) {
+            return applyOperation((Operation) expression, scopeVars, live);
+        }
+
+        trace.unsupportedNode("CheckingEvaluator", expression);
+        return new Binding(ExpressionType.UNDEFINED, null);
+    }
+
+    private Binding applyOperation(Operation operation, IHANScope<Binding> scopeVars, boolean live) {
+        var left = applyExpression(operation.lhs, scopeVars, live);
+        var right = applyExpression(operation.rhs, scopeVars, live);
+        var type = TypeRules.getOperationType(operation, left.type, right.type);
+        track(operation);
+        trace.operationChecked(operation, left.type, right.type, type);
+
+        if (!live || type == ExpressionType.UNDEFINED || left.value == null || right.value == null) {
+            return new Binding(type, null);
+        }
+        var value = Evaluator.calculate(operation, left.value, right.value);
+        //Evaluation events are only traced when the whole AST passed, like the Evaluator after a passing Checker
+        pendingChanges.add(() -> trace.operationEvaluated(operation, left.value, right.value, value));
+        return new Binding(type, value);
+    }
+
+    private Binding applyVarReference(VariableReference reference, IHANScope<Binding> scopeVars, boolean live) {
+        var binding = scopeVars.lookup(reference.name);
+        if (binding == null) {
+            TypeRules.undefinedVariable(reference);
+            track(reference);
+            return new Binding(ExpressionType.UNDEFINED, null);
+        }
+        if (!live && binding.value != null) {
+            return new Binding(binding.type, null);
+        }
+        return binding;
+    }
+
+    private void track(ASTNode node) {
+        failed |= node.hasError();
+    }
+
+    /**
+     * The type of a variable and, when it is assigned in an evaluated part of the AST, its value.
+     */
+    private static final class Binding {
+        private final ExpressionType type;
+        private final Literal value;
+
+        private Binding(ExpressionType type, Literal value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package nl.han.ica.icss.transforms;
 
-import nl.han.ica.datastructures.IHANLinkedList;
-import nl.han.ica.datastructures.MyHanLinkedList;
+import nl.han.ica.datastructures.IHANScope;
+import nl.han.ica.datastructures.MyHanScope;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.BoolLiteral;
 import nl.han.ica.icss.ast.literals.PercentageLiteral;
@@ -10,40 +10,64 @@ import nl.han.ica.icss.ast.literals.ScalarLiteral;
 import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.trace.CompileTrace;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 public class Evaluator implements Transform {
+    private final CompileTrace trace;
+
+    public Evaluator() {
+        this(CompileTrace.NONE);
+    }
+
+    public Evaluator(CompileTrace trace) {
+        this.trace = trace;
+    }
 
     @Override
     public void apply(AST ast) {
-        var globalVariables = new MyHanLinkedList<VariableAssignment>();
-        for (var child : ast.root.getChildren()) {
+        //Scopes hold the evaluated Literal of every declared variable
+        var globalVariables = new MyHanScope<Literal>();
+        for (var child : ast.root.body) {
             if (child instanceof VariableAssignment) {
-                globalVariables.addFirst((VariableAssignment) child);
                 transformVariableAssignment((VariableAssignment) child, globalVariables);
             }
 
             if (child instanceof Stylerule) {
                 var stylerule = (Stylerule) child;
-                stylerule.body = transformRuleBody(stylerule.body, globalVariables);
+                stylerule.body = transformRuleBody(stylerule.body, globalVariables.createChild());
             }
         }
     }
 
-    private ArrayList<ASTNode> transformRuleBody(ArrayList<ASTNode> body, MyHanLinkedList<VariableAssignment> scopeVars) {
+    /**
+     * Evaluates a single checked Stylerule without changing it.
+     * @param stylerule the Stylerule to evaluate
+     * @param globalVariables the values of the global variables
+     * @return a new Stylerule with the same selectors and only Declarations of Literals in its body
+     */
+    public Stylerule transformStylerule(Stylerule stylerule, IHANScope<Literal> globalVariables) {
+        var transformed = new Stylerule();
+        transformed.selectors = stylerule.selectors;
+        transformed.body = transformRuleBody(stylerule.body, globalVariables.createChild());
+        return transformed;
+    }
+
+    /**
+     * Builds the evaluated body of a rule or if branch, the nodes of the given body are not changed.
+     * Variables are declared in scopeVars, Declarations are replaced by new ones with a Literal.
+     */
+    private ArrayList<ASTNode> transformRuleBody(ArrayList<ASTNode> body, IHANScope<Literal> scopeVars) {
         var temp = new ArrayList<ASTNode>();
         for (var child : body) {
             if (child instanceof VariableAssignment) {
-                scopeVars.addFirst((VariableAssignment) child);
-                transformVariableAssignment((VariableAssignment) child, scopeVars);
+                var variableAssignment = (VariableAssignment) child;
+                scopeVars.declare(variableAssignment.name.name, transformExpression(variableAssignment.expression, scopeVars));
             }
 
             if (child instanceof Declaration) {
-                transformDeclaration((Declaration) child, scopeVars);
-                temp.add(child);
-                //System.out.println(temp.toString());
+                temp.add(transformDeclaration((Declaration) child, scopeVars));
             }
 
             if (child instanceof IfClause) {
@@ -53,34 +77,41 @@ public class Evaluator implements Transform {
         return temp;
     }
 
-    private void transformVariableAssignment(VariableAssignment variableAssignment, MyHanLinkedList<VariableAssignment> scopeVars) {
-        variableAssignment.expression = transformExpression(variableAssignment.expression, scopeVars);
+    private void transformVariableAssignment(VariableAssignment variableAssignment, IHANScope<Literal> scopeVars) {
+        var literal = transformExpression(variableAssignment.expression, scopeVars);
+        variableAssignment.expression = literal;
+        scopeVars.declare(variableAssignment.name.name, literal);
     }
 
-    private void transformDeclaration(Declaration declaration, MyHanLinkedList<VariableAssignment> scopeVars) {
-        declaration.expression = transformExpression(declaration.expression, scopeVars);
+    private Declaration transformDeclaration(Declaration declaration, IHANScope<Literal> scopeVars) {
+        var transformed = new Declaration();
+        transformed.property = declaration.property;
+        transformed.expression = transformExpression(declaration.expression, scopeVars);
+        return transformed;
     }
 
-    private ArrayList<ASTNode> transformIfClause(IfClause ifClause, MyHanLinkedList<VariableAssignment> scopeVars) {
-        ifClause.conditionalExpression = transformExpression(ifClause.conditionalExpression, scopeVars);
-        //System.out.println("con "+ ifClause.conditionalExpression);
+    /**
+     * @return the evaluated declarations of the branch chosen by the condition
+     */
+    private ArrayList<ASTNode> transformIfClause(IfClause ifClause, IHANScope<Literal> scopeVars) {
+        var condition = (BoolLiteral) transformExpression(ifClause.conditionalExpression, scopeVars);
 
-        if (((BoolLiteral) ifClause.conditionalExpression).value) {
-            ifClause.elseClause= null;
+        if (condition.value) {
+            return transformRuleBody(ifClause.body, scopeVars.createChild());
         }
-        else {
-            if (ifClause.elseClause == null) {
-                ifClause.body = new ArrayList<>();
-            }
-            else {
-                ifClause.body = ifClause.elseClause.body;
-                ifClause.elseClause = null;
-            }
+        if (ifClause.elseClause == null) {
+            return new ArrayList<>();
         }
-        return transformRuleBody(ifClause.body, scopeVars);
+        return transformRuleBody(ifClause.elseClause.body, scopeVars.createChild());
     }
 
-    private Literal transformExpression(Expression expression, MyHanLinkedList<VariableAssignment> scopeVars) {
+    /**
+     * Evaluates a checked expression, the expression is not changed.
+     * @param expression the expression
+     * @param scopeVars the values of the variables in scope
+     * @return the value of the expression
+     */
+    public Literal transformExpression(Expression expression, IHANScope<Literal> scopeVars) {
         if (expression instanceof Operation) {
             return transformOperation((Operation) expression, scopeVars);
         }
@@ -93,63 +124,67 @@ public class Evaluator implements Transform {
             return (Literal) expression;
         }
 
-        System.out.println("transformExpression returned null");
+        trace.unsupportedNode("Evaluator", expression);
         return null;
     }
 
-    private Literal transformOperation(Operation operation, MyHanLinkedList<VariableAssignment> scopeVars) {
+    private Literal transformOperation(Operation operation, IHANScope<Literal> scopeVars) {
         Literal leftLiteral = transformExpression(operation.lhs, scopeVars);
         Literal rightLiteral = transformExpression(operation.rhs, scopeVars);
-        //System.out.println("literal "+ leftLiteral.toString() + rightLiteral.toString());
+        var result = calculateOperation(operation, leftLiteral, rightLiteral);
+        trace.operationEvaluated(operation, leftLiteral, rightLiteral, result);
+        return result;
+    }
 
+    private Literal calculateOperation(Operation operation, Literal leftLiteral, Literal rightLiteral) {
+        var result = calculate(operation, leftLiteral, rightLiteral);
+        if (result == null) {
+            trace.unsupportedNode("Evaluator", operation);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the Literal of an operation on two checked operands.
+     * @param operation the Operation ASTNode
+     * @param leftLiteral value of the left operand
+     * @param rightLiteral value of the right operand
+     * @return the resulting Literal, or null if the operation is not supported
+     */
+    static Literal calculate(Operation operation, Literal leftLiteral, Literal rightLiteral) {
         var leftValue = getLiteralValue(leftLiteral);
-        var rightValue= getLiteralValue(rightLiteral);;
-        System.out.println("value "+ leftValue + "|" + rightValue);
+        var rightValue= getLiteralValue(rightLiteral);
 
         if (operation instanceof AddOperation) {
-            System.out.println("Add "+ (leftValue + rightValue));
             return createSumLiteral(leftLiteral, leftValue + rightValue);
         }
         if (operation instanceof SubtractOperation) {
-            System.out.println("Sub "+ (leftValue - rightValue));
             return createSumLiteral(leftLiteral, leftValue - rightValue);
         }
         if (operation instanceof MultiplyOperation) {
-            System.out.println("Mul "+ (leftValue * rightValue));
             var type = leftLiteral instanceof ScalarLiteral ? rightLiteral : leftLiteral;
             return createSumLiteral(type, leftValue * rightValue);
         }
-
-        System.out.println("transformOperation returned null");
         return null;
     }
 
-    private Literal getVariableLiteral(VariableReference variableReference, MyHanLinkedList<VariableAssignment> scopeVars) {
-        var currentNode = scopeVars.getFirstNode();
-
-        while (currentNode!= null) {
-            var variableAssignment = currentNode.getValue();
-            var name = variableAssignment.name.name;
-            if (name.equals(variableReference.name)) {
-                //System.out.println("getVariableLiteral returned " + variableAssignment.expression.toString());
-                return (Literal) variableAssignment.expression;
-            }
-            currentNode = currentNode.getNext();
+    private Literal getVariableLiteral(VariableReference variableReference, IHANScope<Literal> scopeVars) {
+        var literal = scopeVars.lookup(variableReference.name);
+        if (literal == null) {
+            trace.unsupportedNode("Evaluator", variableReference);
         }
-
-        System.out.println("getVariableLiteral returned null");
-        return null;
+        return literal;
     }
 
-    private int getLiteralValue(Literal literal){
+    private static int getLiteralValue(Literal literal){
         if (literal instanceof PercentageLiteral) return ((PercentageLiteral) literal).value;
         if (literal instanceof PixelLiteral) return ((PixelLiteral) literal).value;
         return ((ScalarLiteral) literal).value;
     }
 
-    private Literal createSumLiteral(Literal type, int value) {
-        if (type instanceof PercentageLiteral) return new PercentageLiteral(value);
-        if (type instanceof PixelLiteral) return new PixelLiteral(value);
-        return new ScalarLiteral(value);
+    private static Literal createSumLiteral(Literal type, int value) {
+        if (type instanceof PercentageLiteral) return PercentageLiteral.of(value);
+        if (type instanceof PixelLiteral) return PixelLiteral.of(value);
+        return ScalarLiteral.of(value);
     }
 }
@@ -0,0 +1,50 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyHanScopeTest {
+
+	@Test
+	void testInnermostDeclarationWins() {
+		IHANScope<String> global = new MyHanScope<>();
+		global.declare("Width", "global");
+		IHANScope<String> rule = global.createChild();
+		assertEquals("global", rule.lookup("Width"));
+
+		rule.declare("Width", "rule");
+		assertEquals("rule", rule.lookup("Width"));
+		assertEquals("global", global.lookup("Width"));
+	}
+
+	@Test
+	void testRedeclarationReplacesValue() {
+		IHANScope<String> scope = new MyHanScope<>();
+		scope.declare("Color", "first");
+		scope.declare("Color", "second");
+		assertEquals("second", scope.lookup("Color"));
+	}
+
+	@Test
+	void testSiblingScopesAreIndependent() {
+		IHANScope<String> rule = new MyHanScope<>();
+		IHANScope<String> ifBranch = rule.createChild();
+		IHANScope<String> elseBranch = rule.createChild();
+		ifBranch.declare("Height", "if");
+		assertTrue(ifBranch.isDeclared("Height"));
+		assertFalse(elseBranch.isDeclared("Height"));
+		assertFalse(rule.isDeclared("Height"));
+		assertNull(elseBranch.lookup("Height"));
+	}
+
+	@Test
+	void testLaterParentDeclarationIsVisibleInChild() {
+		IHANScope<String> global = new MyHanScope<>();
+		IHANScope<String> rule = global.createChild();
+		assertNull(rule.lookup("Width"));
+		global.declare("Width", "global");
+		assertEquals("global", rule.lookup("Width"));
+		assertTrue(rule.isDeclared("Width"));
+	}
+}
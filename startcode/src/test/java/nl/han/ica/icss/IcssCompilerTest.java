@@ -0,0 +1,74 @@
+package nl.han.ica.icss;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IcssCompilerTest {
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		InputStream inputStream = classLoader.getResourceAsStream(resource);
+		return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testCompileLevel3() throws IOException {
+		CompilationResult result = new IcssCompiler().compile(readTestFile("level3.icss"));
+		assertTrue(result.isSucceeded());
+		assertTrue(result.isParsed() && result.isChecked() && result.isTransformed());
+		assertTrue(result.getDiagnostics().isEmpty());
+		assertTrue(result.getCss().startsWith("p {\n"));
+	}
+
+	@Test
+	void testCompileReportsSemanticErrors() throws IOException {
+		CompilationResult result = new IcssCompiler().compile(readTestFile("testChecker.icss"));
+		assertFalse(result.isSucceeded());
+		assertTrue(result.isParsed());
+		assertFalse(result.isChecked());
+		assertFalse(result.getDiagnostics().isEmpty());
+		assertNull(result.getCss());
+	}
+
+	@Test
+	void testCompileReportsSyntaxErrors() {
+		CompilationResult result = new IcssCompiler().compile("p { width: 10px ");
+		assertFalse(result.isParsed());
+		assertFalse(result.getDiagnostics().isEmpty());
+		assertThrows(UnsupportedOperationException.class, () -> result.getDiagnostics().add("changed"));
+	}
+
+	@Test
+	void testSharedCompilerIsThreadSafe() throws Exception {
+		IcssCompiler compiler = new IcssCompiler();
+		String valid = readTestFile("level3.icss");
+		String invalid = readTestFile("testChecker.icss");
+		CompilationResult expectedValid = compiler.compile(valid);
+		CompilationResult expectedInvalid = compiler.compile(invalid);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			var futures = new ArrayList<CompletableFuture<CompilationResult>>();
+			for (int i = 0; i < 200; i++) {
+				futures.add(compiler.compileAsync(i % 2 == 0 ? valid : invalid, executor));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				CompilationResult expected = i % 2 == 0 ? expectedValid : expectedInvalid;
+				CompilationResult actual = futures.get(i).get();
+				assertEquals(expected.getCss(), actual.getCss());
+				assertEquals(expected.getDiagnostics(), actual.getDiagnostics());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
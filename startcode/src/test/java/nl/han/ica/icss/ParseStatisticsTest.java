@@ -0,0 +1,60 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.ast.AST;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseStatisticsTest {
+
+	AST parseLL(String input) {
+		ICSSParser parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(input))));
+		ASTListener listener = new ASTListener();
+		new ParseTreeWalker().walk(listener, parser.stylesheet());
+		return listener.getAST();
+	}
+
+	@Test
+	void testValidInputNeedsNoFallback() {
+		for (long seed = 0; seed < 5; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(20).ifDepth(2).expressionLength(5).generate();
+			Pipeline pipeline = new Pipeline();
+			pipeline.parseString(input);
+			assertTrue(pipeline.isParsed());
+			assertFalse(pipeline.getParseStatistics().isLlFallback());
+			assertEquals(parseLL(input), pipeline.getAST());
+		}
+	}
+
+	@Test
+	void testSyntaxErrorFallsBackToLL() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p {\n\twidth: 10px +;\n}\n");
+		assertFalse(pipeline.isParsed());
+		assertTrue(pipeline.getParseStatistics().isLlFallback());
+		assertEquals(1, pipeline.getErrors().size());
+		assertTrue(pipeline.getErrors().get(0).startsWith("Syntax error"));
+	}
+
+	@Test
+	void testProfilingReportsDecisions() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("A := 1px + 2px * 3;\np {\n\twidth: A;\n}\n");
+		assertTrue(pipeline.getParseStatistics().getDecisions().isEmpty());
+
+		pipeline.setProfiling(true);
+		pipeline.parseString("A := 1px + 2px * 3;\np {\n\twidth: A;\n}\n");
+		ParseStatistics statistics = pipeline.getParseStatistics();
+		assertTrue(pipeline.isParsed());
+		assertTrue(statistics.getDecisions().stream().anyMatch(decision -> decision.getRule().equals("expression")));
+		assertTrue(statistics.getDecisions().stream().allMatch(decision -> decision.getInvocations() > 0));
+		assertTrue(statistics.formatDecisions().contains("expression"));
+	}
+}
@@ -0,0 +1,106 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCompilerTest {
+
+	@Test
+	void testSameAsCompile() throws IOException {
+		for (long seed = 0; seed < 10; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(40).globalVariables(5).ifDepth(3).expressionLength(5).generate();
+			StringBuilder css = new StringBuilder();
+			List<String> errors = new StreamingCompiler().compile(new StringReader(input), css);
+			assertEquals(List.of(), errors);
+			assertEquals(new IcssCompiler().compile(input).getCss(), css.toString());
+		}
+	}
+
+	@Test
+	void testSemanticErrorsSameAsCompile() throws IOException {
+		for (long seed = 0; seed < 10; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(40).globalVariables(5).invalidRatio(0.1).generate();
+			List<String> errors = new StreamingCompiler().compile(new StringReader(input), new StringBuilder());
+			assertEquals(new IcssCompiler().compile(input).getDiagnostics(), errors);
+		}
+	}
+
+	@Test
+	void testNothingWrittenAfterError() throws IOException {
+		StringBuilder css = new StringBuilder();
+		List<String> errors = new StreamingCompiler().compile(new StringReader(
+				"p {\n\twidth: 10px;\n}\na {\n\twidth: #ffffff;\n}\nb {\n\twidth: 5px;\n}\n"), css);
+		assertEquals(1, errors.size());
+		assertEquals("p {\n  width: 10px;\n}", css.toString());
+	}
+
+	@Test
+	void testSyntaxError() throws IOException {
+		List<String> errors = new StreamingCompiler().compile(new StringReader("p {\n\twidth: 10px +;\n}\na {\n\t: 1px;\n}\n"), new StringBuilder());
+		assertEquals(2, errors.size());
+		assertTrue(errors.get(0).startsWith("Syntax error"));
+	}
+
+	@Test
+	void testSemanticErrorBeforeSyntaxErrorSameAsCompile() throws IOException {
+		String input = "p {\n\twidth: #ffffff;\n}\na {\n\twidth: 10px;\n";
+		List<String> errors = new StreamingCompiler().compile(new StringReader(input), new StringBuilder());
+		assertEquals(new IcssCompiler().compile(input).getDiagnostics(), errors);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).startsWith("Syntax error"));
+	}
+
+	@Test
+	void testFirstRuleWrittenBeforeInputIsRead() throws IOException {
+		String input = new CorpusGenerator(3).styleRules(5000).generate();
+		CountingReader reader = new CountingReader(new StringReader(input));
+		StringBuilder css = new StringBuilder();
+		Appendable out = new Appendable() {
+			int readAtFirstWrite = -1;
+			public Appendable append(CharSequence text) {
+				if (readAtFirstWrite < 0) {
+					readAtFirstWrite = reader.read;
+					assertTrue(readAtFirstWrite < input.length() / 10, "Read " + readAtFirstWrite + " of " + input.length());
+				}
+				css.append(text);
+				return this;
+			}
+			public Appendable append(CharSequence text, int start, int end) {
+				return append(text.subSequence(start, end));
+			}
+			public Appendable append(char c) {
+				return append(String.valueOf(c));
+			}
+		};
+		assertEquals(List.of(), new StreamingCompiler().compile(reader, out));
+		assertEquals(new IcssCompiler().compile(input).getCss(), css.toString());
+	}
+
+	static class CountingReader extends Reader {
+		final Reader reader;
+		int read;
+
+		CountingReader(Reader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			int count = reader.read(buffer, offset, length);
+			read += Math.max(count, 0);
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
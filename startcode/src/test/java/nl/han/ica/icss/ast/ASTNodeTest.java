@@ -0,0 +1,45 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTNodeTest {
+
+	void assertSameChildren(ASTNode node) {
+		List<ASTNode> expected = node.getChildren();
+		assertEquals(expected.size(), node.getChildCount(), node.getNodeLabel());
+
+		List<ASTNode> iterated = new ArrayList<>();
+		node.forEachChild(iterated::add);
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i), node.getChild(i), node.getNodeLabel());
+			assertSame(expected.get(i), iterated.get(i), node.getNodeLabel());
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(-1), node.getNodeLabel());
+		assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(expected.size()), node.getNodeLabel());
+
+		for (ASTNode child : expected) {
+			assertSameChildren(child);
+		}
+	}
+
+	@Test
+	void testChildIterationMatchesGetChildren() {
+		assertSameChildren(Fixtures.uncheckedLevel0().root);
+		assertSameChildren(Fixtures.uncheckedLevel1().root);
+		assertSameChildren(Fixtures.uncheckedLevel2().root);
+		assertSameChildren(Fixtures.uncheckedLevel3().root);
+	}
+
+	@Test
+	void testPartialNodes() {
+		assertSameChildren(new Declaration());
+		assertSameChildren(new Declaration("width"));
+		assertSameChildren((new Declaration()).addChild(new VariableReference("Width")));
+	}
+}
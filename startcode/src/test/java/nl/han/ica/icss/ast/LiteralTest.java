@@ -0,0 +1,42 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.literals.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiteralTest {
+
+	@Test
+	void testSmallValuesAreShared() {
+		assertSame(PixelLiteral.of(0), PixelLiteral.of(0));
+		assertSame(PercentageLiteral.of(100), PercentageLiteral.parse("100%"));
+		assertSame(ScalarLiteral.of(-3), ScalarLiteral.of(-3));
+		assertSame(BoolLiteral.TRUE, BoolLiteral.parse("TRUE"));
+		assertSame(BoolLiteral.FALSE, BoolLiteral.of(false));
+		assertSame(ColorLiteral.of("#ff0000"), ColorLiteral.of(new String("#ff0000")));
+	}
+
+	@Test
+	void testLargeValuesAreEqual() {
+		assertEquals(new PixelLiteral(123456), PixelLiteral.parse("123456px"));
+		assertEquals(123456, PixelLiteral.of(123456).value);
+	}
+
+	@Test
+	void testParseMatchesConstructor() {
+		assertEquals(new PixelLiteral("10px"), PixelLiteral.parse("10px"));
+		assertEquals(new PercentageLiteral("50%"), PercentageLiteral.parse("50%"));
+		assertEquals(new ScalarLiteral("7"), ScalarLiteral.parse("7"));
+		assertThrows(NumberFormatException.class, () -> ScalarLiteral.parse("99999999999"));
+	}
+
+	@Test
+	void testParserSharesLiterals() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p {\n\twidth: 0px;\n\theight: 0px;\n}\n");
+		Stylerule rule = (Stylerule) pipeline.getAST().root.body.get(0);
+		assertSame(((Declaration) rule.body.get(0)).expression, ((Declaration) rule.body.get(1)).expression);
+	}
+}
@@ -0,0 +1,108 @@
+package nl.han.ica.icss.cache;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.CompilerOptions;
+import nl.han.ica.icss.IcssCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompileCacheTest {
+
+	static final String VALID = "W := 10px;\np {\n\twidth: W + 2px;\n}\n";
+	static final String INVALID = "p {\n\twidth: #ffffff;\n}\n";
+
+	@Test
+	void testHitReturnsSameResultWithoutCompiling() {
+		CompileCache cache = new CompileCache(new IcssCompiler(), 1 << 20);
+		CompilationResult first = cache.compile(VALID);
+		CompilationResult second = cache.compile(new StringBuilder(VALID));
+		assertEquals(first.getCss(), second.getCss());
+		assertTrue(second.isSucceeded());
+		assertNull(second.getAST());
+		assertEquals(1, cache.getStatistics().getMisses());
+		assertEquals(1, cache.getStatistics().getHits());
+	}
+
+	@Test
+	void testDiagnosticsAreCached() {
+		CompileCache cache = new CompileCache(new IcssCompiler(), 1 << 20);
+		CompilationResult first = cache.compile(INVALID);
+		CompilationResult second = cache.compile(INVALID);
+		assertFalse(second.isSucceeded());
+		assertTrue(second.isParsed());
+		assertFalse(second.isChecked());
+		assertEquals(first.getDiagnostics(), second.getDiagnostics());
+	}
+
+	@Test
+	void testOptionsArePartOfKey() {
+		CompileCache plain = new CompileCache(new IcssCompiler(), 1 << 20);
+		CompileCache fused = new CompileCache(new IcssCompiler(CompilerOptions.DEFAULT.withFusedCheckAndTransform(true)), 1 << 20);
+		assertNotEquals(plain.key(VALID), fused.key(VALID));
+		assertNotEquals(plain.key(VALID), plain.key(VALID + " "));
+	}
+
+	@Test
+	void testLeastRecentlyUsedIsEvicted() {
+		CompileCache cache = new CompileCache(new IcssCompiler(), 300);
+		String[] inputs = new String[5];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = "p {\n\twidth: " + i + "px;\n}\n";
+			cache.compile(inputs[i]);
+			cache.compile(inputs[0]);
+		}
+		CacheStatistics statistics = cache.getStatistics();
+		assertTrue(statistics.getEvictions() > 0);
+		assertTrue(statistics.getWeight() <= 300);
+		long misses = statistics.getMisses();
+		cache.compile(inputs[0]);
+		assertEquals(misses, cache.getStatistics().getMisses());
+		cache.compile(inputs[1]);
+		assertEquals(misses + 1, cache.getStatistics().getMisses());
+	}
+
+	@Test
+	void testDiskStoreIsShared(@TempDir Path directory) throws IOException {
+		CompileCache writer = new CompileCache(new IcssCompiler(), 1 << 20, new DiskStore(directory));
+		CompilationResult written = writer.compile(VALID);
+		writer.compile(INVALID);
+
+		CompileCache reader = new CompileCache(new IcssCompiler(), 1 << 20, new DiskStore(directory));
+		assertEquals(written.getCss(), reader.compile(VALID).getCss());
+		assertEquals(writer.compile(INVALID).getDiagnostics(), reader.compile(INVALID).getDiagnostics());
+		assertEquals(2, reader.getStatistics().getDiskHits());
+		assertEquals(0, reader.getStatistics().getMisses());
+	}
+
+	@Test
+	void testDamagedEntryIsMiss(@TempDir Path directory) throws IOException {
+		CompileCache writer = new CompileCache(new IcssCompiler(), 1 << 20, new DiskStore(directory));
+		writer.compile(VALID);
+		try (Stream<Path> files = Files.list(directory)) {
+			Path entry = files.findFirst().orElseThrow();
+			Files.write(entry, new byte[]{1, 2, 3});
+		}
+
+		CompileCache reader = new CompileCache(new IcssCompiler(), 1 << 20, new DiskStore(directory));
+		assertTrue(reader.compile(VALID).isSucceeded());
+		assertEquals(1, reader.getStatistics().getMisses());
+	}
+
+	@Test
+	void testStoreFailureReturnsResult(@TempDir Path directory) throws IOException {
+		Path missing = directory.resolve("store");
+		CompileCache cache = new CompileCache(new IcssCompiler(), 1 << 20, new DiskStore(missing));
+		Files.delete(missing);
+		assertTrue(cache.compile(VALID).isSucceeded());
+		assertEquals(1, cache.getStatistics().getStoreFailures());
+		assertTrue(cache.compile(VALID).isSucceeded());
+		assertEquals(1, cache.getStatistics().getHits());
+	}
+}
@@ -0,0 +1,63 @@
+package nl.han.ica.icss.cache;
+
+import nl.han.ica.icss.Pipeline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseCacheTest {
+
+	@Test
+	void testStoredAstIsLoadedWithoutParsing(@TempDir Path directory) throws IOException {
+		Pipeline parsed = new Pipeline();
+		assertFalse(new ParseCache(new DiskStore(directory)).parse(parsed, CompileCacheTest.VALID));
+
+		ParseCache cache = new ParseCache(new DiskStore(directory));
+		Pipeline loaded = new Pipeline();
+		assertTrue(cache.parse(loaded, CompileCacheTest.VALID));
+		assertEquals(1, cache.getHits());
+		assertEquals(parsed.getAST(), loaded.getAST());
+		assertTrue(loaded.isParsed());
+
+		parsed.checkAndTransform();
+		loaded.checkAndTransform();
+		assertEquals(parsed.generate(), loaded.generate());
+	}
+
+	@Test
+	void testSyntaxErrorsAreNotStored(@TempDir Path directory) throws IOException {
+		ParseCache cache = new ParseCache(new DiskStore(directory));
+		Pipeline pipeline = new Pipeline();
+		String input = "p {\n\twidth: ;\n}\n";
+		assertFalse(cache.parse(pipeline, input));
+		assertFalse(cache.parse(pipeline, input));
+		assertFalse(pipeline.getErrors().isEmpty());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	void testSemanticErrorsAreReportedAfterLoad(@TempDir Path directory) throws IOException {
+		ParseCache cache = new ParseCache(new DiskStore(directory));
+		cache.parse(new Pipeline(), CompileCacheTest.INVALID);
+		Pipeline pipeline = new Pipeline();
+		assertTrue(cache.parse(pipeline, CompileCacheTest.INVALID));
+		assertFalse(pipeline.check());
+		assertEquals(1, pipeline.getErrors().size());
+	}
+
+	@Test
+	void testStoreFailureUsesParsedAst(@TempDir Path directory) throws IOException {
+		Path missing = directory.resolve("store");
+		ParseCache cache = new ParseCache(new DiskStore(missing));
+		Files.delete(missing);
+		Pipeline pipeline = new Pipeline();
+		assertFalse(cache.parse(pipeline, CompileCacheTest.VALID));
+		assertTrue(pipeline.isParsed());
+		assertEquals(1, cache.getStoreFailures());
+	}
+}
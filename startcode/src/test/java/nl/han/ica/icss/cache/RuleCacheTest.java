@@ -0,0 +1,68 @@
+package nl.han.ica.icss.cache;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import nl.han.ica.icss.parser.IncrementalParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCacheTest {
+
+	static final String STYLESHEET = "W := 10px;\nC := #ff0000;\np {\n\twidth: W;\n}\na {\n\tcolor: C;\n}\n.menu {\n\theight: 20px;\n}\n";
+
+	void assertSameAsFullCompile(String input, CompilationResult result) {
+		CompilationResult expected = new IcssCompiler().compile(input);
+		assertEquals(expected.getDiagnostics(), result.getDiagnostics());
+		assertEquals(expected.getCss(), result.getCss());
+		assertEquals(expected.isChecked(), result.isChecked());
+		//The AST of the result is only checked
+		assertFalse(result.isTransformed());
+	}
+
+	@Test
+	void testCorpusSameAsFullCompile() {
+		RuleCache cache = new RuleCache(10_000);
+		for (long seed = 0; seed < 10; seed++) {
+			String valid = new CorpusGenerator(seed).styleRules(30).ifDepth(3).expressionLength(4).generate();
+			String invalid = new CorpusGenerator(seed).styleRules(10).invalidRatio(0.3).generate();
+			IncrementalParser parser = new IncrementalParser();
+			parser.parse(valid);
+			assertSameAsFullCompile(valid, cache.compile(parser.getAST()));
+			parser.parse(invalid);
+			assertSameAsFullCompile(invalid, cache.compile(parser.getAST()));
+		}
+	}
+
+	@Test
+	void testOnlyEditedRuleIsCompiledAgain() {
+		RuleCache cache = new RuleCache(100);
+		IncrementalParser parser = new IncrementalParser();
+		parser.parse(STYLESHEET);
+		cache.compile(parser.getAST());
+		assertEquals(3, cache.getMisses());
+
+		parser.edit(parser.getText().indexOf("20px"), 2, "30");
+		assertSameAsFullCompile(parser.getText(), cache.compile(parser.getAST()));
+		assertEquals(4, cache.getMisses());
+		assertEquals(2, cache.getHits());
+	}
+
+	@Test
+	void testChangedVariableRecompilesReferencingRules() {
+		RuleCache cache = new RuleCache(100);
+		IncrementalParser parser = new IncrementalParser();
+		parser.parse(STYLESHEET);
+		cache.compile(parser.getAST());
+
+		parser.edit(parser.getText().indexOf("10px"), 2, "15");
+		assertSameAsFullCompile(parser.getText(), cache.compile(parser.getAST()));
+		assertEquals(4, cache.getMisses());
+
+		parser.edit(parser.getText().indexOf("15px"), 4, "#00ff00");
+		assertSameAsFullCompile(parser.getText(), cache.compile(parser.getAST()));
+		parser.edit(parser.getText().indexOf("#00ff00"), 7, "10px");
+		assertSameAsFullCompile(parser.getText(), cache.compile(parser.getAST()));
+	}
+}
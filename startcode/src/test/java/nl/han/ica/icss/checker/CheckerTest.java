@@ -0,0 +1,50 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.Pipeline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckerTest {
+
+	/**
+	 * Builds "V0 := 1px; V1 := V0 + V0; ... p { width: Vn; }", every variable references the previous one twice.
+	 */
+	static String variableChain(int depth) {
+		StringBuilder sb = new StringBuilder("V0 := 1px;\n");
+		for (int i = 1; i <= depth; i++) {
+			sb.append('V').append(i).append(" := V").append(i - 1).append(" + V").append(i - 1).append(";\n");
+		}
+		sb.append("p {\n\twidth: V").append(depth).append(";\n}\n");
+		return sb.toString();
+	}
+
+	Pipeline check(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.isParsed(), pipeline.getErrors().toString());
+		pipeline.check();
+		return pipeline;
+	}
+
+	@Test
+	@Timeout(5)
+	void testDeepVariableChainIsLinear() {
+		Pipeline pipeline = check(variableChain(500));
+		assertTrue(pipeline.isChecked(), pipeline.getErrors().toString());
+	}
+
+	@Test
+	void testVariableIsTypedInItsOwnScope() {
+		Pipeline pipeline = check("A := B;\nB := 10px;\np {\n\twidth: A;\n}\n");
+		assertFalse(pipeline.isChecked());
+		assertTrue(pipeline.getErrors().get(0).contains("B"));
+	}
+
+	@Test
+	void testUnreferencedAssignmentIsChecked() {
+		Pipeline pipeline = check("A := #ffffff + 10px;\np {\n\twidth: 10px;\n}\n");
+		assertFalse(pipeline.isChecked());
+	}
+}
@@ -0,0 +1,92 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.cache.CompileCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCompilerTest {
+
+	static final String VALID = "W := 10px;\np {\n\twidth: W + 2px;\n}\n";
+	static final String INVALID = "p {\n\twidth: #ffffff;\n}\n";
+	static final String CSS = "p {\n  width: 12px;\n}";
+
+	@Test
+	void testFindInputs(@TempDir Path directory) throws IOException {
+		Path nested = Files.createDirectories(directory.resolve("b/nested"));
+		Path first = Files.writeString(directory.resolve("a.icss"), VALID);
+		Path second = Files.writeString(nested.resolve("c.icss"), VALID);
+		Files.writeString(directory.resolve("notes.txt"), VALID);
+		Files.writeString(directory.resolve("a.css"), CSS);
+
+		assertEquals(List.of(first, second), BatchCompiler.findInputs(List.of(directory)));
+		assertEquals(List.of(second), BatchCompiler.findInputs(List.of(second)));
+	}
+
+	@Test
+	void testOutputPath() {
+		assertEquals(Path.of("styles", "menu.css"), BatchCompiler.outputPath(Path.of("styles", "menu.icss")));
+	}
+
+	@Test
+	void testCompileFileWritesOutput(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		BatchCompiler.FileResult result = BatchCompiler.compileFile(input);
+		assertTrue(result.isSucceeded());
+		assertEquals(VALID.length(), result.bytes);
+		assertEquals(CSS, Files.readString(directory.resolve("a.css")));
+	}
+
+	@Test
+	void testCompileFileInMemoryWritesOutput(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		BatchCompiler.FileResult result = BatchCompiler.compileFileInMemory(input);
+		assertTrue(result.isSucceeded());
+		assertEquals(VALID.length(), result.bytes);
+		assertEquals(CSS, Files.readString(directory.resolve("a.css")));
+		Files.delete(input);
+		assertFalse(BatchCompiler.compileFileInMemory(input).isSucceeded());
+	}
+
+	@Test
+	void testFailedCompileKeepsPreviousOutput(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		BatchCompiler.compileFile(input);
+		Files.writeString(input, INVALID);
+
+		assertFalse(BatchCompiler.compileFile(input).isSucceeded());
+		assertFalse(BatchCompiler.compileFileStreaming(input).isSucceeded());
+		assertFalse(BatchCompiler.compileFile(input, new CompileCache(new IcssCompiler(), 1 << 20)).isSucceeded());
+		assertEquals(CSS, Files.readString(directory.resolve("a.css")));
+		assertFalse(Files.exists(directory.resolve("a.css.tmp")));
+	}
+
+	@Test
+	void testCompileSummary(@TempDir Path directory) throws IOException {
+		Files.writeString(directory.resolve("a.icss"), VALID);
+		Files.writeString(directory.resolve("b.icss"), INVALID);
+		Files.writeString(directory.resolve("c.icss"), VALID);
+
+		BatchCompiler compiler = new BatchCompiler(2);
+		BatchSummary summary;
+		try {
+			summary = compiler.compile(BatchCompiler.findInputs(List.of(directory)));
+		} finally {
+			compiler.shutdown();
+		}
+		assertEquals(3, summary.getResults().size());
+		assertEquals(1, summary.getFailures().size());
+		assertEquals(directory.resolve("b.icss"), summary.getFailures().get(0).input);
+		assertEquals(1, summary.getErrorCount());
+		assertEquals(2 * VALID.length() + INVALID.length(), summary.getTotalBytes());
+		assertTrue(summary.toString().startsWith("Compiled 3 files (2 succeeded, 1 failed, 1 errors)"));
+		assertFalse(Files.exists(directory.resolve("b.css")));
+	}
+}
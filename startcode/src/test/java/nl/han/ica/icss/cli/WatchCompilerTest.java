@@ -0,0 +1,136 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.cache.CompileCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchCompilerTest {
+
+	static final String VALID = "p {\n\twidth: 10px;\n}\n";
+	static final String INVALID = "p {\n\twidth: #ffffff;\n}\n";
+
+	@Test
+	void testRebuildSkipsDeletedFiles(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		try (WatchCompiler watcher = new WatchCompiler(List.of(directory), 50)) {
+			List<BatchCompiler.FileResult> results = watcher.rebuild(List.of(input, directory.resolve("deleted.icss")));
+			assertEquals(1, results.size());
+			assertTrue(results.get(0).isSucceeded());
+		}
+		assertEquals("p {\n  width: 10px;\n}", Files.readString(directory.resolve("a.css")));
+	}
+
+	@Test
+	void testDeletedInputDeletesOutput(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		try (WatchCompiler watcher = new WatchCompiler(List.of(directory), 50)) {
+			watcher.rebuild(List.of(input));
+			assertTrue(Files.exists(directory.resolve("a.css")));
+			Files.delete(input);
+			assertTrue(watcher.rebuild(List.of(input)).isEmpty());
+		}
+		assertFalse(Files.exists(directory.resolve("a.css")));
+	}
+
+	@Test
+	void testRebuildUsesCompilerSettings(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		CompileCache cache = new CompileCache(new IcssCompiler(), 1 << 20);
+		try (WatchCompiler watcher = new WatchCompiler(List.of(directory), 50, cache, false)) {
+			watcher.rebuild(List.of(input));
+			watcher.rebuild(List.of(input));
+		}
+		assertEquals(1, cache.getStatistics().getHits());
+		try (WatchCompiler watcher = new WatchCompiler(List.of(directory), 50, null, true)) {
+			Files.writeString(input, VALID + "a {\n\twidth: 1px;\n}\n");
+			assertTrue(watcher.rebuild(List.of(input)).get(0).isSucceeded());
+		}
+		assertEquals("p {\n  width: 10px;\n}\n\na {\n  width: 1px;\n}", Files.readString(directory.resolve("a.css")));
+	}
+
+	@Test
+	void testFailedRebuildKeepsPreviousOutput(@TempDir Path directory) throws IOException {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		try (WatchCompiler watcher = new WatchCompiler(List.of(directory), 50)) {
+			watcher.rebuild(List.of(input));
+			Files.writeString(input, INVALID);
+			assertFalse(watcher.rebuild(List.of(input)).get(0).isSucceeded());
+		}
+		assertEquals("p {\n  width: 10px;\n}", Files.readString(directory.resolve("a.css")));
+		assertFalse(Files.exists(directory.resolve("a.css.tmp")));
+	}
+
+	@Test
+	void testBurstOfChangesIsOneRebuild(@TempDir Path directory) throws Exception {
+		Path nested = Files.createDirectory(directory.resolve("nested"));
+		BlockingQueue<WatchCompiler.Rebuild> rebuilds = new LinkedBlockingQueue<>();
+		WatchCompiler watcher = new WatchCompiler(List.of(directory), 500);
+		Thread thread = new Thread(() -> {
+			try {
+				watcher.run(rebuilds::add);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		thread.start();
+		try {
+			Files.writeString(directory.resolve("a.icss"), VALID);
+			Files.writeString(nested.resolve("b.icss"), VALID);
+			Files.writeString(directory.resolve("a.icss"), VALID + "a {\n\tcolor: #ff0000;\n}\n");
+			Files.writeString(directory.resolve("notes.txt"), "not compiled");
+
+			WatchCompiler.Rebuild rebuild = rebuilds.poll(10, TimeUnit.SECONDS);
+			assertNotNull(rebuild);
+			assertEquals(2, rebuild.getResults().size());
+			assertTrue(rebuild.getLatencyNanos() >= rebuild.getCompileNanos());
+			assertTrue(Files.readString(directory.resolve("a.css")).contains("color: #ff0000;"));
+			assertTrue(Files.exists(nested.resolve("b.css")));
+			assertNull(rebuilds.poll(1, TimeUnit.SECONDS));
+		} finally {
+			watcher.close();
+			thread.join(5000);
+		}
+		assertFalse(thread.isAlive());
+	}
+
+	@Test
+	void testWatchedFileIgnoresSiblings(@TempDir Path directory) throws Exception {
+		Path input = Files.writeString(directory.resolve("a.icss"), VALID);
+		Path sibling = Files.writeString(directory.resolve("b.icss"), VALID);
+		BlockingQueue<WatchCompiler.Rebuild> rebuilds = new LinkedBlockingQueue<>();
+		WatchCompiler watcher = new WatchCompiler(List.of(input), 200);
+		Thread thread = new Thread(() -> {
+			try {
+				watcher.run(rebuilds::add);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		thread.start();
+		try {
+			Files.writeString(sibling, VALID + "a {\n\tcolor: #ff0000;\n}\n");
+			Files.writeString(input, VALID + "a {\n\tcolor: #ff0000;\n}\n");
+
+			WatchCompiler.Rebuild rebuild = rebuilds.poll(10, TimeUnit.SECONDS);
+			assertNotNull(rebuild);
+			assertEquals(1, rebuild.getResults().size());
+			assertEquals(input.toAbsolutePath(), rebuild.getResults().get(0).input.toAbsolutePath());
+			assertFalse(Files.exists(directory.resolve("b.css")));
+		} finally {
+			watcher.close();
+			thread.join(5000);
+		}
+		assertFalse(thread.isAlive());
+	}
+}
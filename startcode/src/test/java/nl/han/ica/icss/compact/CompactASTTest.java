@@ -0,0 +1,144 @@
+package nl.han.ica.icss.compact;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import nl.han.ica.icss.parser.DirectParser;
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactASTTest {
+
+	static final String STYLESHEET = "W := 10px;\nC := #ff0000;\np {\n\twidth: W * 2 + 5px;\n\tif[TRUE] {\n\t\tcolor: C;\n\t} else {\n\t\tcolor: #00ff00;\n\t}\n}\n#menu {\n\tbackground-color: C;\n}\n";
+
+	CompactAST compact(String input) {
+		return CompactAST.of(new DirectParser(input).parse());
+	}
+
+	void assertSameAsCompile(String input) {
+		CompilationResult expected = new IcssCompiler().compile(input);
+		CompactAST ast = compact(input);
+		List<String> errors = new CompactChecker().check(ast);
+		assertEquals(expected.getDiagnostics(), errors);
+		if (errors.isEmpty()) {
+			assertEquals(expected.getCss(), new CompactGenerator().generate(new CompactEvaluator().apply(ast)));
+		}
+	}
+
+	@Test
+	void testFixturesRoundTrip() {
+		for (AST ast : new AST[]{Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(), Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3()}) {
+			assertEquals(ast, CompactAST.of(ast).toAST());
+		}
+	}
+
+	@Test
+	void testPreorderLayout() {
+		CompactAST ast = compact("p {\n\twidth: 10px + 2px;\n}\n");
+		assertEquals(6, ast.getNodeCount());
+		assertEquals(CompactAST.STYLESHEET, ast.getKind(0));
+		assertEquals(6, ast.getSize(0));
+		assertEquals(CompactAST.STYLERULE, ast.getKind(1));
+		assertEquals("p", ast.getName(1));
+		assertEquals("width", ast.getName(2));
+		assertEquals(CompactAST.ADD, ast.getKind(3));
+		assertEquals(5, ast.getEnd(4));
+		assertEquals(2, ast.getValue(5));
+	}
+
+	@Test
+	void testNamesAreInterned() {
+		CompactAST ast = compact(STYLESHEET);
+		//W, C, p, width, #ff0000, color, #00ff00, #menu, background-color
+		assertEquals(9, ast.getNameCount());
+	}
+
+	@Test
+	void testSameResultAsCompiler() {
+		assertSameAsCompile(STYLESHEET);
+		assertSameAsCompile("p {\n\twidth: X;\n\tX := 1px;\n\tif[X] {\n\t\theight: 2px + 3%;\n\t}\n}\n");
+	}
+
+	@Test
+	void testCorpusSameAsCompiler() {
+		for (long seed = 0; seed < 10; seed++) {
+			String valid = new CorpusGenerator(seed).styleRules(50).scopedVariables(2).ifDepth(3).expressionLength(4).generate();
+			assertEquals(new DirectParser(valid).parse(), compact(valid).toAST());
+			assertSameAsCompile(valid);
+			assertSameAsCompile(new CorpusGenerator(seed).styleRules(30).invalidRatio(0.3).generate());
+		}
+	}
+
+	@Test
+	void testMultipleSelectorsAreRejected() {
+		AST ast = new DirectParser("p {\n\twidth: 1px;\n}\n").parse();
+		((Stylerule) ast.root.body.get(0)).selectors.add(new ClassSelector(".menu"));
+		assertThrows(IllegalArgumentException.class, () -> CompactAST.of(ast));
+	}
+
+	byte[] serialize(CompactAST ast) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ast.writeTo(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
+	@Test
+	void testBinaryRoundTrip() throws IOException {
+		for (long seed = 0; seed < 5; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(50).ifDepth(3).expressionLength(4).generate();
+			AST ast = new DirectParser(input).parse();
+			CompactAST loaded = CompactAST.readFrom(ByteBuffer.wrap(serialize(CompactAST.of(ast))));
+			assertNotNull(loaded);
+			assertEquals(ast, loaded.toAST());
+		}
+		CompactAST negative = new CompactEvaluator().apply(compact("p {\n\twidth: 0px - 5px * 400000000;\n}\n"));
+		assertEquals(-2000000000, negative.getValue(3));
+		assertEquals(negative.toAST(), CompactAST.readFrom(ByteBuffer.wrap(serialize(negative))).toAST());
+	}
+
+	@Test
+	void testDamagedBinaryIsRejected() throws IOException {
+		byte[] bytes = serialize(compact(STYLESHEET));
+		for (int length = 0; length < bytes.length; length++) {
+			assertNull(CompactAST.readFrom(ByteBuffer.wrap(Arrays.copyOf(bytes, length))));
+		}
+		byte[] wrongFormat = bytes.clone();
+		wrongFormat[4]++;
+		assertNull(CompactAST.readFrom(ByteBuffer.wrap(wrongFormat)));
+
+		//Flipping any byte of the nodes must never produce a tree that cannot be converted
+		for (int i = 5; i < bytes.length; i++) {
+			byte[] damaged = bytes.clone();
+			damaged[i] ^= 0x55;
+			CompactAST ast = CompactAST.readFrom(ByteBuffer.wrap(damaged));
+			if (ast != null) {
+				assertNotNull(ast.toAST());
+			}
+		}
+	}
+
+	@Test
+	void testOverflowingSizeIsRejected() throws IOException {
+		byte[] bytes = serialize(compact("p {\n\twidth: 1px;\n}\n"));
+		//The last node is the pixel literal, every field of its kind, size and value takes one byte
+		int size = bytes.length - 2;
+		byte[] damaged = new byte[bytes.length + 4];
+		System.arraycopy(bytes, 0, damaged, 0, size);
+		byte[] maxSize = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07};
+		System.arraycopy(maxSize, 0, damaged, size, maxSize.length);
+		damaged[damaged.length - 1] = bytes[bytes.length - 1];
+		assertNull(CompactAST.readFrom(ByteBuffer.wrap(damaged)));
+	}
+}
@@ -0,0 +1,60 @@
+package nl.han.ica.icss.corpus;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IcssCompiler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusGeneratorTest {
+
+	@Test
+	void testSameSeedSameCorpus() {
+		String first = new CorpusGenerator(42).styleRules(50).generate();
+		String second = new CorpusGenerator(42).styleRules(50).generate();
+		String other = new CorpusGenerator(43).styleRules(50).generate();
+		assertEquals(first, second);
+		assertNotEquals(first, other);
+	}
+
+	@Test
+	void testValidCorpusCompiles() {
+		IcssCompiler compiler = new IcssCompiler();
+		for (long seed = 0; seed < 20; seed++) {
+			String corpus = new CorpusGenerator(seed)
+					.styleRules(40)
+					.globalVariables(15)
+					.scopedVariables(3)
+					.ifDepth(3)
+					.expressionLength(4)
+					.generate();
+			CompilationResult result = compiler.compile(corpus);
+			assertTrue(result.isSucceeded(), "seed " + seed + ": " + result.getDiagnostics());
+		}
+	}
+
+	@Test
+	void testInvalidCorpusParsesButFailsChecks() {
+		IcssCompiler compiler = new IcssCompiler();
+		for (long seed = 0; seed < 20; seed++) {
+			String corpus = new CorpusGenerator(seed).styleRules(10).invalidRatio(1.0).generate();
+			CompilationResult result = compiler.compile(corpus);
+			assertTrue(result.isParsed(), "seed " + seed + ": " + result.getDiagnostics());
+			assertFalse(result.isChecked(), "seed " + seed);
+		}
+	}
+
+	@Test
+	void testTargetSize() {
+		String corpus = new CorpusGenerator(1).targetSize(64 * 1024).generate();
+		assertTrue(corpus.length() >= 64 * 1024);
+		assertTrue(corpus.length() < 80 * 1024);
+	}
+
+	@Test
+	void testLiteralMixWithoutDeclarationTypeIsRejected() {
+		CorpusGenerator generator = new CorpusGenerator(1);
+		assertThrows(IllegalArgumentException.class, () -> generator.literalMix(0, 0, 0, 1));
+		assertThrows(IllegalArgumentException.class, () -> generator.literalMix(-1, 1, 1, 1));
+	}
+}
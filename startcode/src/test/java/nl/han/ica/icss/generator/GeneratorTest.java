@@ -0,0 +1,73 @@
+package nl.han.ica.icss.generator;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorTest {
+
+	AST transformTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		InputStream inputStream = classLoader.getResourceAsStream(resource);
+		String input = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		pipeline.transform();
+		return pipeline.getAST();
+	}
+
+	@Test
+	void testGenerateLevel3() throws IOException {
+		AST ast = transformTestFile("level3.icss");
+		String expected = "p {\n" +
+				"  background-color: #ffffff;\n" +
+				"  width: 500px;\n" +
+				"  color: #124532;\n" +
+				"  background-color: #000000;\n" +
+				"  height: 20px;\n" +
+				"}\n" +
+				"\n" +
+				"a {\n" +
+				"  color: #ff0000;\n" +
+				"}\n" +
+				"\n" +
+				"#menu {\n" +
+				"  width: 520px;\n" +
+				"}\n" +
+				"\n" +
+				".menu {\n" +
+				"  color: #000000;\n" +
+				"  background-color: #ff0000;\n" +
+				"}";
+		assertEquals(expected, new Generator().generate(ast));
+	}
+
+	@Test
+	void testStreamingMatchesString() throws IOException {
+		for (String resource : new String[]{"level0.icss", "level1.icss", "level2.icss", "level3.icss"}) {
+			AST ast = transformTestFile(resource);
+			Generator generator = new Generator();
+			String expected = generator.generate(ast);
+
+			StringWriter writer = new StringWriter();
+			generator.generate(ast, writer);
+			assertEquals(expected, writer.toString());
+
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			generator.generate(ast, stream);
+			assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testGenerateEmptyStylesheet() {
+		assertEquals("", new Generator().generate(new AST()));
+	}
+}
@@ -0,0 +1,84 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTBuilderTest {
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		InputStream inputStream = classLoader.getResourceAsStream(resource);
+		return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+	}
+
+	AST build(String input) {
+		ICSSParser parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(input))));
+		parser.removeErrorListeners();
+		parser.setBuildParseTree(false);
+		ASTBuilder builder = new ASTBuilder();
+		parser.addParseListener(builder);
+		//Only the tokens of a rule itself are kept, not its child rules
+		assertTrue(parser.stylesheet().getRuleContexts(ParserRuleContext.class).isEmpty());
+		return builder.getAST();
+	}
+
+	@Test
+	void testFixtures() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel0(), build(readTestFile("level0.icss")));
+		assertEquals(Fixtures.uncheckedLevel1(), build(readTestFile("level1.icss")));
+		assertEquals(Fixtures.uncheckedLevel2(), build(readTestFile("level2.icss")));
+		assertEquals(Fixtures.uncheckedLevel3(), build(readTestFile("level3.icss")));
+	}
+
+	@Test
+	void testCorpusSameAsASTListener() {
+		for (long seed = 0; seed < 10; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(30).globalVariables(5).ifDepth(3).expressionLength(6).generate();
+			Pipeline pipeline = new Pipeline();
+			pipeline.parseString(input);
+			assertEquals(pipeline.getAST(), build(input));
+		}
+	}
+
+	@Test
+	void testPipelineWithoutParseTree() {
+		String input = "W := 1px + 2px * 3 - 4px;\np {\n\tif[TRUE] {\n\t\twidth: W;\n\t} else {\n\t\twidth: 2px;\n\t}\n}\n";
+		Pipeline expected = new Pipeline();
+		expected.parseString(input);
+		Pipeline pipeline = new Pipeline();
+		pipeline.setBuildParseTree(false);
+		pipeline.parseString(input);
+		assertTrue(pipeline.isParsed());
+		assertEquals(expected.getAST(), pipeline.getAST());
+	}
+
+	@Test
+	void testSyntaxErrorsDoNotBreakBuilder() {
+		Random random = new Random(20);
+		for (int i = 0; i < 1000; i++) {
+			StringBuilder input = new StringBuilder("p {\n");
+			int count = random.nextInt(10);
+			for (int j = 0; j < count; j++) {
+				input.append(DirectParserTest.FRAGMENTS[random.nextInt(DirectParserTest.FRAGMENTS.length)]).append(' ');
+			}
+			Pipeline pipeline = new Pipeline();
+			pipeline.setBuildParseTree(false);
+			pipeline.parseString(input.toString());
+			DirectParser direct = new DirectParser(input);
+			direct.parse();
+			assertEquals(direct.getErrors().isEmpty(), pipeline.isParsed(), input.toString());
+		}
+	}
+}
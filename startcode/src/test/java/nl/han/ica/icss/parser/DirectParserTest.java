@@ -0,0 +1,131 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectParserTest {
+
+	static final String[] FRAGMENTS = {" ", "\n", "p", "a-b", ".menu", "#main", "#ff0000", "#ff00001", "#abc", "{", "}",
+			"[", "]", ":", ":=", ";", "+", "-", "*", "10px", "10p", "50%", "3", "TRUE", "FALSE", "TRUEX", "Width",
+			"if", "iffy", "else", "width: 10px;", "W := 2px * 3 + 1px;", "@", "é"};
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		InputStream inputStream = classLoader.getResourceAsStream(resource);
+		return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parses with ANTLR, returns null if the lexer or parser reported an error.
+	 */
+	AST parseWithAntlr(String input) {
+		List<String> errors = new ArrayList<>();
+		BaseErrorListener listener = new BaseErrorListener() {
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+				errors.add(msg);
+			}
+		};
+		ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(input));
+		lexer.removeErrorListeners();
+		lexer.addErrorListener(listener);
+		ICSSParser parser = new ICSSParser(new CommonTokenStream(lexer));
+		parser.removeErrorListeners();
+		parser.addErrorListener(listener);
+		ICSSParser.StylesheetContext stylesheet = parser.stylesheet();
+		if (!errors.isEmpty()) {
+			//The ASTListener can not walk every tree ANTLR recovered from errors
+			return null;
+		}
+		ASTListener astListener = new ASTListener();
+		new ParseTreeWalker().walk(astListener, stylesheet);
+		return astListener.getAST();
+	}
+
+	void assertSameAsAntlr(String input) {
+		AST expected = parseWithAntlr(input);
+		DirectParser parser = new DirectParser(input);
+		AST actual = parser.parse();
+		assertEquals(expected == null, !parser.getErrors().isEmpty(), input);
+		if (expected != null) {
+			assertEquals(expected, actual, input);
+		}
+	}
+
+	@Test
+	void testFixtures() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel0(), new DirectParser(readTestFile("level0.icss")).parse());
+		assertEquals(Fixtures.uncheckedLevel1(), new DirectParser(readTestFile("level1.icss")).parse());
+		assertEquals(Fixtures.uncheckedLevel2(), new DirectParser(readTestFile("level2.icss")).parse());
+		assertEquals(Fixtures.uncheckedLevel3(), new DirectParser(readTestFile("level3.icss")).parse());
+	}
+
+	@Test
+	void testParseAgain() throws IOException {
+		DirectParser parser = new DirectParser(readTestFile("level3.icss"));
+		AST first = parser.parse();
+		assertEquals(first, parser.parse());
+		assertEquals(List.of(), parser.getErrors());
+
+		DirectParser invalid = new DirectParser("p {\n\twidth: 1px @;\n}\n");
+		invalid.parse();
+		List<String> errors = List.copyOf(invalid.getErrors());
+		assertFalse(errors.isEmpty());
+		invalid.parse();
+		assertEquals(errors, invalid.getErrors());
+	}
+
+	@Test
+	void testCorpusSameAsAntlr() {
+		for (long seed = 0; seed < 20; seed++) {
+			assertSameAsAntlr(new CorpusGenerator(seed).styleRules(30).globalVariables(5)
+					.ifDepth(3).expressionLength(6).invalidRatio(seed % 3 * 0.1).generate());
+		}
+	}
+
+	@Test
+	void testRandomTokensSameAsAntlr() {
+		Random random = new Random(19);
+		for (int i = 0; i < 3000; i++) {
+			StringBuilder input = new StringBuilder();
+			if (random.nextBoolean()) {
+				input.append("p {\n");
+			}
+			int count = random.nextInt(12);
+			for (int j = 0; j < count; j++) {
+				input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+				if (random.nextBoolean()) {
+					input.append(' ');
+				}
+			}
+			if (random.nextBoolean()) {
+				input.append("}\n");
+			}
+			assertSameAsAntlr(input.toString());
+		}
+	}
+
+	@Test
+	void testOperatorPrecedence() {
+		assertSameAsAntlr("p {\n\twidth: 1px + 2px * 3 - 4px * 5 * 6 - A;\n}\n");
+		assertSameAsAntlr("p {\n\tif[A] {\n\t\twidth: 1px;\n\t} else {\n\t\tif[TRUE] {\n\t\t\tB := 2;\n\t\t}\n\t}\n}\n");
+	}
+
+	@Test
+	void testSyntaxErrorIsReported() {
+		DirectParser parser = new DirectParser("p {\n\twidth: 10px +;\n}\n");
+		assertEquals(new AST(), parser.parse());
+		assertEquals(List.of("Syntax error: line 2:14 mismatched input ';' expecting an expression"), parser.getErrors());
+	}
+}
@@ -0,0 +1,96 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParserTest {
+
+	static final String[] REPLACEMENTS = {"", " ", "1", "px", ";", "}", "{", "W", "width: 3px;\n",
+			"Extra := 2px;\n", "p {\n\tcolor: #ff0000;\n}\n", "if[TRUE] {\n", "+ 1"};
+
+	void assertSameAsFullParse(IncrementalParser incremental) {
+		IncrementalParser full = new IncrementalParser();
+		full.parse(incremental.getText());
+		assertEquals(full.getErrors(), incremental.getErrors());
+		assertEquals(full.getAST(), incremental.getAST());
+	}
+
+	@Test
+	void testRandomEditsSameAsFullParse() {
+		Random random = new Random(7);
+		IncrementalParser incremental = new IncrementalParser();
+		incremental.parse(new CorpusGenerator(7).styleRules(20).globalVariables(5).ifDepth(2).generate());
+		for (int i = 0; i < 300; i++) {
+			int length = incremental.getText().length();
+			int offset = random.nextInt(length + 1);
+			int removed = random.nextInt(Math.min(8, length - offset) + 1);
+			incremental.edit(offset, removed, REPLACEMENTS[random.nextInt(REPLACEMENTS.length)]);
+			assertSameAsFullParse(incremental);
+		}
+	}
+
+	@Test
+	void testEditInsideRuleOnlyParsesRule() {
+		IncrementalParser incremental = new IncrementalParser();
+		incremental.parse("W := 1px;\np {\n\twidth: 10px;\n}\na {\n\theight: 20px;\n}\n");
+		String text = incremental.getText();
+		incremental.edit(text.indexOf("10px"), 2, "15");
+		incremental.edit(incremental.getText().indexOf("a {"), 1, "b");
+		assertSameAsFullParse(incremental);
+		assertEquals(1, incremental.getFullParses());
+	}
+
+	@Test
+	void testAssignmentAfterRuleFallsBackToFullParse() {
+		IncrementalParser incremental = new IncrementalParser();
+		incremental.parse("p {\n\twidth: 10px;\n}\n");
+		incremental.edit(incremental.getText().length(), 0, "W := 1px;\n");
+		assertFalse(incremental.getErrors().isEmpty());
+		assertEquals(2, incremental.getFullParses());
+	}
+
+	@Test
+	void testSyntaxErrorRecovers() {
+		IncrementalParser incremental = new IncrementalParser();
+		incremental.parse("p {\n\twidth: 10px;\n}\n");
+		incremental.edit(5, 0, "}");
+		assertFalse(incremental.getErrors().isEmpty());
+		incremental.edit(5, 1, "");
+		assertTrue(incremental.getErrors().isEmpty());
+		assertSameAsFullParse(incremental);
+	}
+
+	@Test
+	void testPipelineClearsErrorsOfPreviousCheck() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("W := #ffffff;\np {\n\twidth: W;\n}\n");
+		pipeline.parseEdit(0, 0, "");
+		assertFalse(pipeline.check());
+		//Only the assignment is parsed again, the declaration keeps the node that failed the check
+		pipeline.parseEdit(5, 7, "10px");
+		assertTrue(pipeline.isParsed());
+		assertTrue(pipeline.check(), pipeline.getErrors().toString());
+		pipeline.transform();
+		assertEquals("p {\n  width: 10px;\n}", pipeline.generate());
+	}
+
+	@Test
+	void testPipelineEditAfterTransform() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p {\n\twidth: 10px;\n}\n");
+		pipeline.parseEdit(12, 2, "20");
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		//The transformed AST no longer matches the text, the text of the edits is parsed again
+		pipeline.parseEdit(12, 2, "30");
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		assertEquals("p {\n  width: 30px;\n}", pipeline.generate());
+		assertTrue(pipeline.getParseStatistics().getNanos() > 0);
+	}
+}
@@ -0,0 +1,86 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCharStreamTest {
+
+	@TempDir
+	Path directory;
+
+	Path write(String text) throws IOException {
+		Path file = directory.resolve("input.icss");
+		Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	void testSameAsStringStream() throws IOException {
+		String text = "A := 10px;\np {\n\twidth: A;\n}\n";
+		CharStream mapped = MappedCharStream.open(write(text));
+		CharStream expected = CharStreams.fromString(text);
+		assertTrue(mapped instanceof MappedCharStream);
+		assertEquals(expected.size(), mapped.size());
+		while (expected.LA(1) != IntStream.EOF) {
+			assertEquals(expected.LA(1), mapped.LA(1));
+			expected.consume();
+			mapped.consume();
+			assertEquals(expected.LA(-1), mapped.LA(-1));
+		}
+		assertEquals(IntStream.EOF, mapped.LA(1));
+		assertThrows(IllegalStateException.class, mapped::consume);
+		assertEquals("10px", mapped.getText(Interval.of(5, 8)));
+		assertEquals("}\n", mapped.getText(Interval.of(text.length() - 2, text.length() + 5)));
+	}
+
+	@Test
+	void testParseFileSameAsParseString() throws IOException {
+		for (long seed = 0; seed < 5; seed++) {
+			String text = new CorpusGenerator(seed).styleRules(30).ifDepth(2).invalidRatio(seed % 2 * 0.2).generate();
+			Path file = write(text);
+			Pipeline expected = new Pipeline();
+			expected.parseString(text);
+			Pipeline pipeline = new Pipeline();
+			pipeline.parseFile(file);
+			assertEquals(expected.getAST(), pipeline.getAST());
+			assertEquals(new IcssCompiler().compile(text).getCss(), new IcssCompiler().compile(file).getCss());
+		}
+	}
+
+	@Test
+	void testNonAsciiFileIsDecoded() throws IOException {
+		String text = "p {\n\twidth: 10px;\n}\né";
+		CharStream stream = MappedCharStream.open(write(text));
+		assertFalse(stream instanceof MappedCharStream);
+		Pipeline expected = new Pipeline();
+		expected.parseString(text);
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseFile(write(text));
+		assertEquals(expected.getErrors(), pipeline.getErrors());
+	}
+
+	@Test
+	void testEditAfterParseFile() throws IOException {
+		String text = "p {\n\twidth: 10px;\n}\n";
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseFile(write(text));
+		pipeline.parseEdit(text.indexOf("10"), 2, "20");
+		Pipeline expected = new Pipeline();
+		expected.parseString(text.replace("10px", "20px"));
+		assertEquals(expected.getAST(), pipeline.getAST());
+	}
+}
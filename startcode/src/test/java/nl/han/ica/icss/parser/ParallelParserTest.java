@@ -0,0 +1,95 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelParserTest {
+
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	AST parseSequential(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		return pipeline.getAST();
+	}
+
+	@Test
+	void testSameAsSequentialParse() {
+		for (long seed = 0; seed < 10; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(200).globalVariables(10).ifDepth(3).generate();
+			ParallelParser parser = new ParallelParser(executor, 4, 1000);
+			AST ast = parser.parse(input);
+			assertEquals(List.of(), parser.getErrors());
+			assertTrue(parser.getChunks() > 1);
+			assertEquals(parseSequential(input), ast);
+		}
+	}
+
+	@Test
+	void testSplitAfterTopLevelRules() {
+		String input = "A := 1px;\np {\n\tif[TRUE] {\n\t\twidth: A;\n\t}\n}\na {\n\twidth: 2px;\n}\n";
+		List<ParallelParser.Chunk> chunks = ParallelParser.split(input, 1);
+		assertEquals(2, chunks.size());
+		assertEquals(input.indexOf("\na {"), chunks.get(0).end);
+		assertEquals(input.indexOf("\na {"), chunks.get(1).start);
+		assertEquals(input.length(), chunks.get(1).end);
+		assertNull(ParallelParser.split("p {\n\twidth: 2px;\n}\n}\n", 1));
+		assertNull(ParallelParser.split("p {\n\twidth: 2px;\n", 1));
+	}
+
+	@Test
+	void testErrorsSameAsSequentialParse() {
+		String input = "p {\n\twidth: 1px;\n}\na {\n\twidth: 2px;\n}\nb {\n\twidth: 3px +;\n}\n";
+		ParallelParser parser = new ParallelParser(executor, 4, 1);
+		parser.parse(input);
+		assertEquals(3, parser.getChunks());
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertEquals(1, parser.getErrors().size());
+		assertEquals(pipeline.getErrors(), parser.getErrors());
+	}
+
+	@Test
+	void testAssignmentAfterRuleParsedWhole() {
+		String input = "p {\n\twidth: 1px;\n}\nA := 2px;\na {\n\twidth: A;\n}\n";
+		ParallelParser parser = new ParallelParser(executor, 4, 1);
+		parser.parse(input);
+		assertEquals(1, parser.getChunks());
+		assertFalse(parser.getErrors().isEmpty());
+	}
+
+	@Test
+	void testAssignmentAfterSyntaxErrorReportsErrorsOnce() {
+		String input = "p {\n\twidth: ;\n}\na {\n\twidth: 1px;\n}\nA := 2px;\nb {\n\twidth: A;\n}\n";
+		ParallelParser whole = new ParallelParser(executor, 1, Integer.MAX_VALUE);
+		whole.parse(input);
+		ParallelParser parser = new ParallelParser(executor, 4, 1);
+		parser.parse(input);
+		assertEquals(1, parser.getChunks());
+		assertEquals(whole.getErrors(), parser.getErrors());
+	}
+
+	@Test
+	void testPipelineParallelParsing() {
+		String input = new CorpusGenerator(5).styleRules(500).generate();
+		Pipeline pipeline = new Pipeline();
+		pipeline.setParallelParsing(executor, 4);
+		pipeline.parseString(input);
+		assertTrue(pipeline.isParsed());
+		assertEquals(parseSequential(input), pipeline.getAST());
+	}
+}
@@ -0,0 +1,67 @@
+package nl.han.ica.icss.template;
+
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StylesheetTemplateTest {
+
+	static final String THEME = "Brand := #ff0000;\nWide := TRUE;\nBase := 10px;\nDouble := Base * 2;\n"
+			+ "p {\n\tcolor: Brand;\n\tif[Wide] {\n\t\twidth: Double + 5px;\n\t} else {\n\t\twidth: Base;\n\t}\n}\n"
+			+ "a {\n\tL := Base - 1px;\n\theight: L * 3;\n}\n";
+
+	AST parse(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.isParsed());
+		return pipeline.getAST();
+	}
+
+	@Test
+	void testDefaultRenderSameAsCompile() {
+		for (long seed = 0; seed < 10; seed++) {
+			String input = new CorpusGenerator(seed).styleRules(30).ifDepth(3).expressionLength(4).generate();
+			assertEquals(new IcssCompiler().compile(input).getCss(), StylesheetTemplate.compile(parse(input)).render());
+		}
+	}
+
+	@Test
+	void testValuesReplaceAssignments() {
+		StylesheetTemplate template = StylesheetTemplate.compile(parse(THEME));
+		String themed = THEME.replace("#ff0000", "#00ff00").replace("TRUE", "FALSE").replace("Base := 10px", "Base := 7px");
+		String css = template.render(Map.of("Brand", ColorLiteral.of("#00ff00"), "Wide", BoolLiteral.FALSE, "Base", PixelLiteral.of(7)));
+		assertEquals(new IcssCompiler().compile(themed).getCss(), css);
+		assertEquals(new IcssCompiler().compile(THEME).getCss(), template.render());
+	}
+
+	@Test
+	void testVariablesAreInputs() {
+		StylesheetTemplate template = StylesheetTemplate.compile(parse(THEME));
+		assertEquals(Map.of("Brand", ExpressionType.COLOR, "Wide", ExpressionType.BOOL,
+				"Base", ExpressionType.PIXEL, "Double", ExpressionType.PIXEL), template.getVariables());
+		assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("Brand", PixelLiteral.of(1))));
+		assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("Unknown", PixelLiteral.of(1))));
+	}
+
+	@Test
+	void testAstIsNotTransformed() {
+		AST ast = parse(THEME);
+		StylesheetTemplate.compile(ast);
+		assertEquals(parse(THEME), ast);
+	}
+
+	@Test
+	void testStylesheetWithErrorsIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> StylesheetTemplate.compile(parse("p {\n\twidth: #ffffff;\n}\n")));
+	}
+}
@@ -0,0 +1,91 @@
+package nl.han.ica.icss.template;
+
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static nl.han.ica.icss.template.StylesheetTemplateTest.THEME;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThemeRendererTest {
+
+	List<Map<String, Literal>> themes() {
+		List<Map<String, Literal>> themes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			themes.add(Map.of("Brand", ColorLiteral.of(String.format("#%06x", i * 4099)),
+					"Wide", BoolLiteral.of(i % 2 == 0), "Base", PixelLiteral.of(i)));
+		}
+		return themes;
+	}
+
+	String expected(Map<String, Literal> theme) {
+		String themed = THEME.replace("#ff0000", ((ColorLiteral) theme.get("Brand")).value)
+				.replace("TRUE", ((BoolLiteral) theme.get("Wide")).value ? "TRUE" : "FALSE")
+				.replace("Base := 10px", "Base := " + ((PixelLiteral) theme.get("Base")).value + "px");
+		return new IcssCompiler().compile(themed).getCss();
+	}
+
+	@Test
+	void testRenderAsyncSameAsCompile() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Map<String, Literal>> themes = themes();
+			List<CompletableFuture<ThemeRenderer.RenderedTheme>> futures = ThemeRenderer.of(THEME).renderAsync(themes, executor);
+			for (int i = 0; i < themes.size(); i++) {
+				assertEquals(i, futures.get(i).join().getIndex());
+				assertEquals(expected(themes.get(i)), futures.get(i).join().getCss());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testRenderEachPassesEveryTheme() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Map<String, Literal>> themes = themes();
+			Map<Integer, String> rendered = new HashMap<>();
+			ThemeRenderer.of(THEME).renderEach(themes, executor, theme -> rendered.put(theme.getIndex(), theme.getCss()));
+			assertEquals(themes.size(), rendered.size());
+			for (int i = 0; i < themes.size(); i++) {
+				assertEquals(expected(themes.get(i)), rendered.get(i));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testInvalidThemeRendersNothing() {
+		List<Map<String, Literal>> themes = new ArrayList<>(themes());
+		themes.add(Map.of("Brand", PixelLiteral.of(1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> ThemeRenderer.of(THEME).renderAsync(themes, command -> fail("Nothing may be rendered")));
+	}
+
+	@Test
+	void testParseValue() {
+		assertEquals(PixelLiteral.of(12), ThemeRenderer.parseValue("12px"));
+		assertEquals(PercentageLiteral.of(50), ThemeRenderer.parseValue("50%"));
+		assertEquals(ScalarLiteral.of(3), ThemeRenderer.parseValue(" 3 "));
+		assertEquals(ColorLiteral.of("#00ff00"), ThemeRenderer.parseValue("#00ff00"));
+		assertEquals(BoolLiteral.FALSE, ThemeRenderer.parseValue("FALSE"));
+		assertThrows(IllegalArgumentException.class, () -> ThemeRenderer.parseValue("10px + 2px"));
+		assertThrows(IllegalArgumentException.class, () -> ThemeRenderer.parseValue("Base"));
+		assertThrows(IllegalArgumentException.class, () -> ThemeRenderer.parseValue("@"));
+		assertThrows(IllegalArgumentException.class, () -> ThemeRenderer.parseValue("10px@"));
+	}
+
+	@Test
+	void testStylesheetWithErrorsIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> ThemeRenderer.of("p {\n\twidth: 10px + #ffffff;\n}\n"));
+		assertThrows(IllegalArgumentException.class, () -> ThemeRenderer.of("p {"));
+	}
+}
@@ -0,0 +1,94 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.CompilerOptions;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.corpus.CorpusGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckingEvaluatorTest {
+
+	String load(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	void assertSameAsSequential(String input) {
+		CompilationResult sequential = new IcssCompiler().compile(input);
+		CompilationResult fused = new IcssCompiler(CompilerOptions.DEFAULT.withFusedCheckAndTransform(true)).compile(input);
+		assertEquals(sequential.getDiagnostics(), fused.getDiagnostics());
+		assertEquals(sequential.getAST(), fused.getAST());
+		assertEquals(sequential.getCss(), fused.getCss());
+		assertEquals(sequential.isChecked(), fused.isChecked());
+		assertEquals(sequential.isTransformed(), fused.isTransformed());
+	}
+
+	@Test
+	void testResourcesSameAsSequential() throws IOException {
+		for (String resource : new String[]{"level0.icss", "level1.icss", "level2.icss", "level3.icss",
+				"testChecker.icss", "testTransform.icss"}) {
+			assertSameAsSequential(load(resource));
+		}
+	}
+
+	@Test
+	void testCorpusSameAsSequential() {
+		for (long seed = 0; seed < 10; seed++) {
+			assertSameAsSequential(new CorpusGenerator(seed).styleRules(30).ifDepth(3).expressionLength(4).generate());
+			assertSameAsSequential(new CorpusGenerator(seed).styleRules(10).invalidRatio(0.3).generate());
+		}
+	}
+
+	@Test
+	void testDeadBranchIsChecked() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p {\n\tif[FALSE] {\n\t\twidth: #ffffff;\n\t}\n}\n");
+		assertFalse(pipeline.checkAndTransform());
+		assertFalse(pipeline.isTransformed());
+		assertEquals(1, pipeline.getErrors().size());
+	}
+
+	@Test
+	void testFailingAstIsLeftUnchanged() {
+		String input = "W := 10px + 2px;\np {\n\twidth: W;\n\theight: W + #ffffff;\n}\n";
+		Pipeline expected = new Pipeline();
+		expected.parseString(input);
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertFalse(pipeline.checkAndTransform());
+		expected.check();
+		assertEquals(expected.getAST(), pipeline.getAST());
+	}
+
+	@Test
+	void testRuleNodesAreNotChanged() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p {\n\twidth: 1px + 2px;\n\tif[TRUE] {\n\t\theight: 3px;\n\t} else {\n\t\theight: 4px;\n\t}\n}\n");
+		Stylerule stylerule = (Stylerule) pipeline.getAST().root.body.get(0);
+		Declaration declaration = (Declaration) stylerule.body.get(0);
+		IfClause ifClause = (IfClause) stylerule.body.get(1);
+		Expression expression = declaration.expression;
+		ArrayList<ASTNode> ifBody = ifClause.body;
+		ElseClause elseClause = ifClause.elseClause;
+
+		assertTrue(pipeline.checkAndTransform());
+		assertEquals(2, stylerule.body.size());
+		assertNotSame(declaration, stylerule.body.get(0));
+		assertSame(expression, declaration.expression);
+		assertSame(ifBody, ifClause.body);
+		assertSame(elseClause, ifClause.elseClause);
+		assertTrue(ifClause.conditionalExpression instanceof BoolLiteral);
+	}
+}
@@ -0,0 +1,56 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.CompilerOptions;
+import nl.han.ica.icss.IcssCompiler;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.trace.CompileTrace;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+	String compile(String input) {
+		CompilationResult result = new IcssCompiler().compile(input);
+		assertTrue(result.isSucceeded(), result.getDiagnostics().toString());
+		return result.getCss();
+	}
+
+	@Test
+	void testRuleVariableDoesNotLeakIntoNextRule() {
+		String css = compile("W := 10px;\np {\n\tW := 20px;\n\twidth: W;\n}\na {\n\twidth: W;\n}\n");
+		assertEquals("p {\n  width: 20px;\n}\n\na {\n  width: 10px;\n}", css);
+	}
+
+	@Test
+	void testIfBranchVariableDoesNotLeakIntoRule() {
+		String css = compile("p {\n\tW := 1px;\n\tif[TRUE] {\n\t\tW := 2px;\n\t\twidth: W;\n\t}\n\theight: W;\n}\n");
+		assertEquals("p {\n  width: 2px;\n  height: 1px;\n}", css);
+	}
+
+	@Test
+	void testOperationsFollowPrecedence() {
+		String css = compile("W := 10px;\np {\n\twidth: W + 2 * 5px - 3px;\n}\n");
+		assertEquals("p {\n  width: 17px;\n}", css);
+	}
+
+	@Test
+	void testTraceReceivesEvaluatedOperations() {
+		List<String> events = new ArrayList<>();
+		CompileTrace trace = new CompileTrace() {
+			@Override
+			public void operationEvaluated(Operation operation, Literal left, Literal right, Literal result) {
+				events.add(operation.getNodeLabel() + " " + result.getNodeLabel());
+			}
+		};
+		CompilationResult result = new IcssCompiler(CompilerOptions.DEFAULT.withTrace(trace))
+				.compile("p {\n\twidth: 10px + 2 * 5px;\n}\n");
+		assertTrue(result.isSucceeded());
+		assertEquals(List.of("Multiply Pixel literal (10)", "Add Pixel literal (20)"), events);
+	}
+}